@@ -2,8 +2,10 @@ package com.example.dating.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DatingMiniAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(DatingMiniAppApplication.class, args);
@@ -1,96 +1,126 @@
 package com.example.dating.backend.api.swipes;
 
 import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.example.dating.backend.api.profiles.ProfileLocation;
 import com.example.dating.backend.api.profiles.ProfileResponse;
+import com.example.dating.backend.swipe.SwipeDecisionResponse;
+import com.example.dating.backend.swipe.SwipeFeedCursor;
+import com.example.dating.backend.swipe.SwipeFeedItem;
+import com.example.dating.backend.swipe.SwipeFeedResponse;
+import com.example.dating.backend.swipe.SwipeService;
 
 @Service
 public class MiniAppSwipeService {
 
-    private static final int HISTORY_LIMIT = 10;
+    private static final Logger log = LoggerFactory.getLogger(MiniAppSwipeService.class);
 
-    private final Map<Long, SwipeSession> sessions = new ConcurrentHashMap<>();
+    private static final int HISTORY_LIMIT = 10;
 
-    public MiniAppSwipeService() {
-        sessions.put(111111L, createSession(111111L));
+    private final SwipeSessionStore sessionStore;
+    private final SwipeService swipeService;
+    private final Executor refillExecutor;
+    private final int refillWatermark;
+    private final int refillBatchSize;
+
+    public MiniAppSwipeService(
+        SwipeSessionStore sessionStore,
+        SwipeService swipeService,
+        @Qualifier("applicationTaskExecutor") Executor refillExecutor,
+        @Value("${swipe.queue.refill-watermark:5}") int refillWatermark,
+        @Value("${swipe.queue.refill-batch-size:20}") int refillBatchSize
+    ) {
+        this.sessionStore = sessionStore;
+        this.swipeService = swipeService;
+        this.refillExecutor = refillExecutor;
+        this.refillWatermark = refillWatermark;
+        this.refillBatchSize = refillBatchSize;
     }
 
     public SwipeQueue fetchQueue(Long telegramId) {
-        SwipeSession session = sessions.computeIfAbsent(telegramId, this::createSession);
+        SwipeSession session = sessionStore.get(telegramId, this::createSession);
         synchronized (session) {
+            if (session.queue().isEmpty() && !session.refillInFlight()) {
+                // An explicit reload is the only place an exhausted feed is polled again.
+                session.refillInFlight(true);
+                refill(telegramId, session, session.feedCursor());
+            }
+            scheduleRefillIfLow(telegramId, session);
             return snapshotQueue(session);
         }
     }
 
     public SwipeResponse processSwipe(Long telegramId, SwipeRequest request) {
-        SwipeSession session = sessions.computeIfAbsent(telegramId, this::createSession);
+        SwipeSession session = sessionStore.get(telegramId, this::createSession);
         synchronized (session) {
             Instant now = Instant.now();
-            return switch (request.direction()) {
+            SwipeResponse response = switch (request.direction()) {
                 case LIKE, SUPERLIKE -> handlePositiveSwipe(session, telegramId, request, now);
-                case DISLIKE -> handleDislike(session, request, now);
-                case UNDO -> handleUndo(session, now);
+                case DISLIKE -> handleDislike(session, telegramId, request, now);
+                case UNDO -> handleUndo(session, telegramId, request, now);
             };
+            sessionStore.markDirty(telegramId, session);
+            scheduleRefillIfLow(telegramId, session);
+            return response;
         }
     }
 
     private SwipeResponse handlePositiveSwipe(SwipeSession session, Long telegramId, SwipeRequest request, Instant now) {
         Long targetId = requireTarget(request);
-        SwipeQueueItem removed = removeFromQueue(session.queue(), targetId);
+        SwipeDecisionResponse decision = swipeService.like(telegramId, targetId);
+        SwipeQueueItem removed = session.removeCard(targetId);
         if (removed != null) {
-            session.history().push(new SwipeHistoryEntry(removed));
+            session.history().push(new SwipeHistoryEntry(removed, request.direction()));
             trimHistory(session.history());
         }
 
-        boolean matched = targetId % 2 == 0;
-        String matchId = matched ? "match-" + telegramId + "-" + targetId : null;
-
-        return new SwipeResponse(matched, matchId, now, snapshotQueue(session));
+        String matchId = decision.match() && decision.matchId() != null ? decision.matchId().toString() : null;
+        return respond(session, request, decision.match(), matchId, now);
     }
 
-    private SwipeResponse handleDislike(SwipeSession session, SwipeRequest request, Instant now) {
+    private SwipeResponse handleDislike(SwipeSession session, Long telegramId, SwipeRequest request, Instant now) {
         Long targetId = requireTarget(request);
-        SwipeQueueItem removed = removeFromQueue(session.queue(), targetId);
+        swipeService.pass(telegramId, targetId);
+        SwipeQueueItem removed = session.removeCard(targetId);
         if (removed != null) {
-            session.history().push(new SwipeHistoryEntry(removed));
+            session.history().push(new SwipeHistoryEntry(removed, SwipeDirection.DISLIKE));
             trimHistory(session.history());
         }
-        return new SwipeResponse(false, null, now, snapshotQueue(session));
+        return respond(session, request, false, null, now);
     }
 
-    private SwipeResponse handleUndo(SwipeSession session, Instant now) {
-        SwipeHistoryEntry previous = session.history().pollFirst();
-        if (previous != null) {
-            session.queue().removeIf(item -> item.profile().telegramId().equals(previous.item().profile().telegramId()));
-            session.queue().addFirst(previous.item());
+    private SwipeResponse handleUndo(SwipeSession session, Long telegramId, SwipeRequest request, Instant now) {
+        if (session.undoAvailable()) {
+            SwipeHistoryEntry previous = session.history().pollFirst();
+            swipeService.undoPass(telegramId, previous.item().profile().telegramId());
+            session.restoreCard(previous.item());
         }
-        return new SwipeResponse(false, null, now, snapshotQueue(session));
+        return respond(session, request, false, null, now);
     }
 
-    private SwipeQueue snapshotQueue(SwipeSession session) {
-        return new SwipeQueue(new ArrayList<>(session.queue()), !session.history().isEmpty());
-    }
-
-    private SwipeQueueItem removeFromQueue(Deque<SwipeQueueItem> queue, Long targetTelegramId) {
-        Iterator<SwipeQueueItem> iterator = queue.iterator();
-        while (iterator.hasNext()) {
-            SwipeQueueItem candidate = iterator.next();
-            if (candidate.profile().telegramId().equals(targetTelegramId)) {
-                iterator.remove();
-                return candidate;
+    private SwipeResponse respond(SwipeSession session, SwipeRequest request, boolean matched, String matchId, Instant now) {
+        if (request.queueVersion() != null && request.queueEpoch() != null) {
+            List<SwipeQueueOp> ops = session.opsSince(request.queueEpoch(), request.queueVersion());
+            if (ops != null) {
+                SwipeQueueDelta delta = new SwipeQueueDelta(
+                    session.queueEpoch(), request.queueVersion(), session.queueVersion(), ops, session.undoAvailable());
+                return new SwipeResponse(matched, matchId, now, null, delta);
             }
         }
-        return null;
+        return new SwipeResponse(matched, matchId, now, snapshotQueue(session), null);
+    }
+
+    private SwipeQueue snapshotQueue(SwipeSession session) {
+        return new SwipeQueue(session.queue().view(), session.undoAvailable(), session.queueEpoch(), session.queueVersion());
     }
 
     private Long requireTarget(SwipeRequest request) {
@@ -101,50 +131,81 @@ public class MiniAppSwipeService {
         return target;
     }
 
-    private SwipeSession createSession(Long ignoredTelegramId) {
-        Deque<SwipeQueueItem> queue = new ArrayDeque<>(seedQueue());
-        return new SwipeSession(queue, new ArrayDeque<>());
-    }
-
-    private List<SwipeQueueItem> seedQueue() {
-        Instant now = Instant.now();
-        return List.of(
-            new SwipeQueueItem(
-                new ProfileResponse(
-                    222222L,
-                    "Катя",
-                    "Играю на пианино",
-                    List.of("музыка", "путешествия"),
-                    null,
-                    new ProfileLocation("Москва", 55.75222, 37.61556),
-                    now
-                ),
-                1.2
-            ),
-            new SwipeQueueItem(
-                new ProfileResponse(
-                    333333L,
-                    "Сергей",
-                    "Бег и кофе",
-                    List.of("спорт"),
-                    null,
-                    new ProfileLocation("Москва", 55.76222, 37.62556),
-                    now
-                ),
-                2.5
+    private SwipeSession createSession(Long telegramId) {
+        SwipeFeedResponse page = swipeService.loadFeed(telegramId, refillBatchSize, null);
+        SwipeSession session = new SwipeSession(toQueueItems(page.items()), List.of(), 0L);
+        session.feedCursor(page.nextCursor());
+        session.feedExhausted(page.nextCursor() == null);
+        return session;
+    }
+
+    /**
+     * Must be called while holding the session lock. The next feed page is loaded on the refill
+     * executor so a swipe never waits for the candidate query.
+     */
+    private void scheduleRefillIfLow(Long telegramId, SwipeSession session) {
+        if (session.queue().size() >= refillWatermark || session.feedExhausted() || session.refillInFlight()) {
+            return;
+        }
+        session.refillInFlight(true);
+        String cursor = session.feedCursor();
+        try {
+            refillExecutor.execute(() -> refill(telegramId, session, cursor));
+        } catch (RuntimeException ex) {
+            session.refillInFlight(false);
+            log.warn("swipe_queue_refill_rejected telegramId={}", telegramId, ex);
+        }
+    }
+
+    private void refill(Long telegramId, SwipeSession session, String cursor) {
+        SwipeFeedResponse page;
+        try {
+            page = swipeService.loadFeed(telegramId, refillBatchSize, SwipeFeedCursor.decode(cursor));
+        } catch (RuntimeException ex) {
+            log.warn("swipe_queue_refill_failed telegramId={}", telegramId, ex);
+            synchronized (session) {
+                session.refillInFlight(false);
+            }
+            return;
+        }
+
+        synchronized (session) {
+            session.refillInFlight(false);
+            for (SwipeQueueItem item : toQueueItems(page.items())) {
+                if (!inHistory(session, item.profile().telegramId())) {
+                    session.appendCard(item);
+                }
+            }
+            session.feedCursor(page.nextCursor() != null ? page.nextCursor() : cursor);
+            session.feedExhausted(page.nextCursor() == null);
+            sessionStore.markDirty(telegramId, session);
+        }
+    }
+
+    private boolean inHistory(SwipeSession session, Long telegramId) {
+        return session.history().stream().anyMatch(entry -> entry.item().profile().telegramId().equals(telegramId));
+    }
+
+    private List<SwipeQueueItem> toQueueItems(List<SwipeFeedItem> items) {
+        return items.stream().map(this::toQueueItem).toList();
+    }
+
+    /**
+     * Candidates only expose their city; exact coordinates of other users never leave the backend.
+     */
+    private SwipeQueueItem toQueueItem(SwipeFeedItem item) {
+        ProfileLocation location = item.city() != null ? new ProfileLocation(item.city(), null, null) : null;
+        return new SwipeQueueItem(
+            new ProfileResponse(
+                item.telegramId(),
+                item.displayName(),
+                item.bio(),
+                item.interests(),
+                null,
+                location,
+                item.lastSeen() != null ? item.lastSeen().toInstant() : null
             ),
-            new SwipeQueueItem(
-                new ProfileResponse(
-                    444444L,
-                    "Маша",
-                    "Маркетолог, изучаю UX",
-                    List.of("маркетинг", "книги"),
-                    null,
-                    new ProfileLocation("Москва", 55.74222, 37.60556),
-                    now
-                ),
-                0.8
-            )
+            item.distanceMeters() != null ? item.distanceMeters() / 1000d : null
         );
     }
 
@@ -153,8 +214,4 @@ public class MiniAppSwipeService {
             history.removeLast();
         }
     }
-
-    private record SwipeSession(Deque<SwipeQueueItem> queue, Deque<SwipeHistoryEntry> history) {}
-
-    private record SwipeHistoryEntry(SwipeQueueItem item) {}
 }
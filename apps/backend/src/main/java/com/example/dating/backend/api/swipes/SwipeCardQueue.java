@@ -0,0 +1,186 @@
+package com.example.dating.backend.api.swipes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.dating.backend.support.LongOpenHashing;
+
+/**
+ * Insertion-ordered card queue with constant-time lookup and removal by telegram id. Cards are
+ * linked in queue order and indexed by an open-addressing table keyed by the primitive id, so a
+ * swipe neither scans the deck nor boxes ids. Not thread-safe; guarded by the session lock.
+ */
+final class SwipeCardQueue {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Node[] nodes;
+    private Node head;
+    private Node tail;
+    private int size;
+    private List<SwipeQueueItem> snapshot = List.of();
+    private int viewFrom;
+    private int viewTo;
+    private List<SwipeQueueItem> view = List.of();
+    private boolean viewStale;
+
+    SwipeCardQueue(Collection<SwipeQueueItem> items) {
+        allocate(LongOpenHashing.capacityFor(items.size(), MIN_CAPACITY));
+        for (SwipeQueueItem item : items) {
+            addLast(item);
+        }
+    }
+
+    boolean addLast(SwipeQueueItem item) {
+        long id = item.profile().telegramId();
+        if (contains(id)) {
+            return false;
+        }
+        ensureCapacity();
+        Node node = new Node(id, item);
+        node.prev = tail;
+        if (tail != null) {
+            tail.next = node;
+        } else {
+            head = node;
+        }
+        tail = node;
+        insert(node);
+        viewStale = true;
+        return true;
+    }
+
+    boolean addFirst(SwipeQueueItem item) {
+        long id = item.profile().telegramId();
+        if (contains(id)) {
+            return false;
+        }
+        ensureCapacity();
+        Node node = new Node(id, item);
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        } else {
+            tail = node;
+        }
+        head = node;
+        insert(node);
+        // An undo puts back the card that was just taken off the front of the snapshot.
+        if (!viewStale && viewFrom > 0 && snapshot.get(viewFrom - 1) == item) {
+            slideView(viewFrom - 1, viewTo);
+        } else {
+            viewStale = true;
+        }
+        return true;
+    }
+
+    SwipeQueueItem remove(long id) {
+        int slot = LongOpenHashing.find(keys, id);
+        if (slot < 0) {
+            return null;
+        }
+        Node node = nodes[slot];
+        LongOpenHashing.delete(keys, nodes, slot);
+        if (!viewStale && node.prev == null) {
+            slideView(viewFrom + 1, viewTo);
+        } else if (!viewStale && node.next == null) {
+            slideView(viewFrom, viewTo - 1);
+        } else {
+            viewStale = true;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        size--;
+        return node.item;
+    }
+
+    boolean contains(long id) {
+        return LongOpenHashing.find(keys, id) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Immutable snapshot in queue order, safe to hand out after releasing the session lock. Taking
+     * a card off either end or undoing it back onto the front only narrows or widens a window
+     * over the last snapshot; anything else rebuilds it on the next read.
+     */
+    List<SwipeQueueItem> view() {
+        if (viewStale) {
+            List<SwipeQueueItem> items = new ArrayList<>(size);
+            for (Node node = head; node != null; node = node.next) {
+                items.add(node.item);
+            }
+            snapshot = Collections.unmodifiableList(items);
+            viewFrom = 0;
+            viewTo = size;
+            view = snapshot;
+            viewStale = false;
+        } else if (view == null) {
+            view = snapshot.subList(viewFrom, viewTo);
+        }
+        return view;
+    }
+
+    private void slideView(int from, int to) {
+        viewFrom = from;
+        viewTo = to;
+        view = null;
+    }
+
+    private void ensureCapacity() {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void insert(Node node) {
+        int slot = -LongOpenHashing.find(keys, node.id) - 1;
+        keys[slot] = node.id;
+        nodes[slot] = node;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        allocate(capacity);
+        for (Node node = head; node != null; node = node.next) {
+            int slot = -LongOpenHashing.find(keys, node.id) - 1;
+            keys[slot] = node.id;
+            nodes[slot] = node;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = LongOpenHashing.newKeys(capacity);
+        nodes = new Node[capacity];
+    }
+
+    private static final class Node {
+        private final long id;
+        private final SwipeQueueItem item;
+        private Node prev;
+        private Node next;
+
+        private Node(long id, SwipeQueueItem item) {
+            this.id = id;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.dating.backend.api.swipes;
+
+/**
+ * A card the user swiped, newest first in the session history, with the direction it was swiped.
+ */
+public record SwipeHistoryEntry(
+    SwipeQueueItem item,
+    SwipeDirection direction
+) {}
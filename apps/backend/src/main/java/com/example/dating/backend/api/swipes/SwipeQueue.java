@@ -2,4 +2,4 @@ package com.example.dating.backend.api.swipes;
 
 import java.util.List;
 
-public record SwipeQueue(List<SwipeQueueItem> items, boolean undoAvailable) {}
+public record SwipeQueue(List<SwipeQueueItem> items, boolean undoAvailable, long epoch, long version) {}
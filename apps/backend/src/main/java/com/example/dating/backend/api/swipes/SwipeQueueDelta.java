@@ -0,0 +1,11 @@
+package com.example.dating.backend.api.swipes;
+
+import java.util.List;
+
+public record SwipeQueueDelta(
+    long epoch,
+    long fromVersion,
+    long toVersion,
+    List<SwipeQueueOp> ops,
+    boolean undoAvailable
+) {}
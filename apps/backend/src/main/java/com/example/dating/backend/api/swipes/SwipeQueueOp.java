@@ -0,0 +1,18 @@
+package com.example.dating.backend.api.swipes;
+
+public record SwipeQueueOp(
+    long version,
+    Type type,
+    Long telegramId,
+    SwipeQueueItem item
+) {
+
+    public enum Type {
+        /** Card left the queue; only {@code telegramId} is set. */
+        REMOVE,
+        /** Card was appended to the tail by a refill. */
+        APPEND,
+        /** Card was put back at the head by an undo. */
+        RESTORE
+    }
+}
@@ -2,7 +2,21 @@ package com.example.dating.backend.api.swipes;
 
 import jakarta.validation.constraints.NotNull;
 
+/**
+ * @param queueVersion queue version the client last applied. When present the response carries a
+ *                     {@link SwipeQueueDelta} instead of the full queue, unless the client fell
+ *                     too far behind and has to resync from a snapshot.
+ * @param queueEpoch   epoch that came with {@code queueVersion}; versions from another epoch,
+ *                     such as one handed out by another node, always get a snapshot.
+ */
 public record SwipeRequest(
     Long targetTelegramId,
-    @NotNull SwipeDirection direction
-) {}
+    @NotNull SwipeDirection direction,
+    Long queueVersion,
+    Long queueEpoch
+) {
+
+    public SwipeRequest(Long targetTelegramId, SwipeDirection direction) {
+        this(targetTelegramId, direction, null, null);
+    }
+}
@@ -2,9 +2,13 @@ package com.example.dating.backend.api.swipes;
 
 import java.time.Instant;
 
+/**
+ * Exactly one of {@code queue} (full snapshot) and {@code delta} is set.
+ */
 public record SwipeResponse(
     boolean matched,
     String matchId,
     Instant createdAt,
-    SwipeQueue queue
+    SwipeQueue queue,
+    SwipeQueueDelta delta
 ) {}
@@ -0,0 +1,168 @@
+package com.example.dating.backend.api.swipes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mutable per-user swipe state. Callers synchronize on the instance while reading or changing it.
+ * Every queue change bumps the queue version and is kept in a short op log so clients that know
+ * a recent version can be sent only what changed since.
+ *
+ * <p>Versions are counted per node, so two nodes can hand out the same number for different
+ * queues. Each instance therefore draws a random epoch whenever its version is set from outside
+ * (a restore or a rebase), and deltas are only served for a version from the same epoch.
+ */
+final class SwipeSession {
+
+    private static final int OP_LOG_LIMIT = 128;
+
+    private final SwipeCardQueue queue;
+    private final Deque<SwipeHistoryEntry> history;
+    private final Deque<SwipeQueueOp> opLog = new ArrayDeque<>();
+    private long queueEpoch = newEpoch();
+    private long queueVersion;
+    private long persistedVersion;
+    private long versionCheckedAtMillis;
+    private String feedCursor;
+    private boolean feedExhausted;
+    private boolean refillInFlight;
+
+    SwipeSession(Collection<SwipeQueueItem> queue, Collection<SwipeHistoryEntry> history, long persistedVersion) {
+        this.queue = new SwipeCardQueue(queue);
+        this.history = new ArrayDeque<>(history);
+        this.persistedVersion = persistedVersion;
+    }
+
+    SwipeCardQueue queue() {
+        return queue;
+    }
+
+    SwipeQueueItem removeCard(long telegramId) {
+        SwipeQueueItem removed = queue.remove(telegramId);
+        if (removed != null) {
+            record(SwipeQueueOp.Type.REMOVE, telegramId, null);
+        }
+        return removed;
+    }
+
+    boolean appendCard(SwipeQueueItem item) {
+        boolean added = queue.addLast(item);
+        if (added) {
+            record(SwipeQueueOp.Type.APPEND, item.profile().telegramId(), item);
+        }
+        return added;
+    }
+
+    void restoreCard(SwipeQueueItem item) {
+        queue.remove(item.profile().telegramId());
+        queue.addFirst(item);
+        record(SwipeQueueOp.Type.RESTORE, item.profile().telegramId(), item);
+    }
+
+    long queueVersion() {
+        return queueVersion;
+    }
+
+    long queueEpoch() {
+        return queueEpoch;
+    }
+
+    /** Starts a new epoch: the op log is dropped, so no client version from before can be served. */
+    void queueVersion(long queueVersion) {
+        this.queueVersion = queueVersion;
+        this.queueEpoch = newEpoch();
+        opLog.clear();
+    }
+
+    /**
+     * Ops applied after {@code knownVersion}, or {@code null} when the version is from another
+     * epoch, the log no longer reaches back that far, or the version is unknown, and the client
+     * has to take a full snapshot.
+     */
+    List<SwipeQueueOp> opsSince(long knownEpoch, long knownVersion) {
+        if (knownEpoch != queueEpoch || knownVersion > queueVersion) {
+            return null;
+        }
+        long oldestReachable = opLog.isEmpty() ? queueVersion : opLog.peekFirst().version() - 1;
+        if (knownVersion < oldestReachable) {
+            return null;
+        }
+        List<SwipeQueueOp> ops = new ArrayList<>((int) (queueVersion - knownVersion));
+        for (SwipeQueueOp op : opLog) {
+            if (op.version() > knownVersion) {
+                ops.add(op);
+            }
+        }
+        return ops;
+    }
+
+    Deque<SwipeHistoryEntry> history() {
+        return history;
+    }
+
+    /**
+     * Only a dislike can be taken back. Likes are final and may already have produced a match, so a
+     * like on top of the history makes undo unavailable until the next dislike.
+     */
+    boolean undoAvailable() {
+        SwipeHistoryEntry last = history.peekFirst();
+        return last != null && last.direction() == SwipeDirection.DISLIKE;
+    }
+
+    private void record(SwipeQueueOp.Type type, long telegramId, SwipeQueueItem item) {
+        queueVersion++;
+        opLog.addLast(new SwipeQueueOp(queueVersion, type, telegramId, item));
+        if (opLog.size() > OP_LOG_LIMIT) {
+            opLog.removeFirst();
+        }
+    }
+
+    /** Kept below 2^53 so the value survives a round trip through a JavaScript number. */
+    private static long newEpoch() {
+        return ThreadLocalRandom.current().nextLong(1L << 53);
+    }
+
+    long persistedVersion() {
+        return persistedVersion;
+    }
+
+    void persistedVersion(long persistedVersion) {
+        this.persistedVersion = persistedVersion;
+    }
+
+    long versionCheckedAtMillis() {
+        return versionCheckedAtMillis;
+    }
+
+    void versionCheckedAtMillis(long versionCheckedAtMillis) {
+        this.versionCheckedAtMillis = versionCheckedAtMillis;
+    }
+
+    String feedCursor() {
+        return feedCursor;
+    }
+
+    void feedCursor(String feedCursor) {
+        this.feedCursor = feedCursor;
+    }
+
+    boolean feedExhausted() {
+        return feedExhausted;
+    }
+
+    void feedExhausted(boolean feedExhausted) {
+        this.feedExhausted = feedExhausted;
+    }
+
+    boolean refillInFlight() {
+        return refillInFlight;
+    }
+
+    void refillInFlight(boolean refillInFlight) {
+        this.refillInFlight = refillInFlight;
+    }
+}
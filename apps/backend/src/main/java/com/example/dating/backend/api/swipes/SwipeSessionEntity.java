@@ -0,0 +1,48 @@
+package com.example.dating.backend.api.swipes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@Table(name = "swipe_sessions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SwipeSessionEntity {
+    @Id
+    @Column(name = "telegram_id")
+    private Long telegramId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "queue", columnDefinition = "jsonb", nullable = false)
+    private String queue;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "history", columnDefinition = "jsonb", nullable = false)
+    private String history;
+
+    @Column(name = "feed_cursor")
+    private String feedCursor;
+
+    @Column(name = "feed_exhausted", nullable = false)
+    private boolean feedExhausted;
+
+    @Column(name = "queue_version", nullable = false)
+    private long queueVersion;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
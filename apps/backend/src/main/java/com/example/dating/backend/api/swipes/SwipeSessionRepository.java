@@ -0,0 +1,12 @@
+package com.example.dating.backend.api.swipes;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SwipeSessionRepository extends JpaRepository<SwipeSessionEntity, Long>, SwipeSessionRepositoryCustom {
+
+    @Query(value = "SELECT version FROM swipe_sessions WHERE telegram_id = :telegramId", nativeQuery = true)
+    Optional<Long> findVersion(@Param("telegramId") Long telegramId);
+}
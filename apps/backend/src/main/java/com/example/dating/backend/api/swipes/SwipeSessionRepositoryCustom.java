@@ -0,0 +1,12 @@
+package com.example.dating.backend.api.swipes;
+
+import java.util.List;
+
+public interface SwipeSessionRepositoryCustom {
+
+    /**
+     * Writes all rows in one JDBC batch. A row is only applied when the stored version is exactly
+     * one behind it; the returned array holds {@code false} for rows another node already moved on.
+     */
+    boolean[] upsertAllIfVersionMatches(List<SwipeSessionEntity> rows);
+}
@@ -0,0 +1,59 @@
+package com.example.dating.backend.api.swipes;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class SwipeSessionRepositoryImpl implements SwipeSessionRepositoryCustom {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO swipe_sessions (telegram_id, queue, history, feed_cursor, feed_exhausted,
+                                        queue_version, version, updated_at)
+            VALUES (?, CAST(? AS jsonb), CAST(? AS jsonb), ?, ?, ?, ?, ?)
+            ON CONFLICT (telegram_id) DO UPDATE
+            SET queue = EXCLUDED.queue,
+                history = EXCLUDED.history,
+                feed_cursor = EXCLUDED.feed_cursor,
+                feed_exhausted = EXCLUDED.feed_exhausted,
+                queue_version = EXCLUDED.queue_version,
+                version = EXCLUDED.version,
+                updated_at = EXCLUDED.updated_at
+            WHERE swipe_sessions.version = EXCLUDED.version - 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SwipeSessionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean[] upsertAllIfVersionMatches(List<SwipeSessionEntity> rows) {
+        int[] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SwipeSessionEntity row = rows.get(i);
+                ps.setLong(1, row.getTelegramId());
+                ps.setString(2, row.getQueue());
+                ps.setString(3, row.getHistory());
+                ps.setString(4, row.getFeedCursor());
+                ps.setBoolean(5, row.isFeedExhausted());
+                ps.setLong(6, row.getQueueVersion());
+                ps.setLong(7, row.getVersion());
+                ps.setObject(8, row.getUpdatedAt());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        boolean[] applied = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            applied[i] = counts[i] != 0;
+        }
+        return applied;
+    }
+}
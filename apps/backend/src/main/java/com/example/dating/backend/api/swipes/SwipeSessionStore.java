@@ -0,0 +1,244 @@
+package com.example.dating.backend.api.swipes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded near-cache of swipe sessions backed by {@code swipe_sessions}. Sessions are evicted by
+ * size and idle time; changes are written behind in batches. Every row carries a version: a node
+ * that finds a newer version on read or loses a write merges the stored copy into its own and
+ * writes the result again, so concurrent nodes converge without dropping either side's swipes.
+ * Cache hits only probe the stored version once per {@code swipe.sessions.version-check-ms}, so
+ * a swipe on another node shows up here within that interval or on the next write conflict.
+ */
+@Component
+public class SwipeSessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SwipeSessionStore.class);
+
+    private static final TypeReference<List<SwipeQueueItem>> ITEMS = new TypeReference<>() {};
+    private static final TypeReference<List<SwipeHistoryEntry>> HISTORY = new TypeReference<>() {};
+
+    private final SwipeSessionRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, SwipeSession> sessions;
+    private final Map<Long, SwipeSession> dirty = new ConcurrentHashMap<>();
+    private final long versionCheckMillis;
+
+    public SwipeSessionStore(
+        SwipeSessionRepository repository,
+        ObjectMapper objectMapper,
+        @Value("${swipe.sessions.max-size:100000}") long maxSize,
+        @Value("${swipe.sessions.idle-ttl-ms:1800000}") long idleTtlMillis,
+        @Value("${swipe.sessions.version-check-ms:5000}") long versionCheckMillis
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.versionCheckMillis = versionCheckMillis;
+        this.sessions = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterAccess(Duration.ofMillis(idleTtlMillis))
+            .build();
+    }
+
+    /**
+     * Cached session, brought up to date when another node has persisted a newer version and the
+     * last probe is older than the check interval. The probe is a primary-key lookup; the full
+     * row is only read when it moved. On a miss the session is loaded or built by {@code factory}
+     * outside the cache, so a slow feed query does not hold up other keys; if two callers race,
+     * the first one to finish wins.
+     */
+    SwipeSession get(Long telegramId, Function<Long, SwipeSession> factory) {
+        SwipeSession cached = sessions.getIfPresent(telegramId);
+        if (cached != null) {
+            catchUpIfDue(telegramId, cached);
+            return cached;
+        }
+        SwipeSession loaded = dirty.get(telegramId);
+        if (loaded == null) {
+            loaded = repository.findById(telegramId).map(this::restore).orElseGet(() -> factory.apply(telegramId));
+            synchronized (loaded) {
+                loaded.versionCheckedAtMillis(System.currentTimeMillis());
+            }
+        }
+        SwipeSession raced = sessions.asMap().putIfAbsent(telegramId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    void markDirty(Long telegramId, SwipeSession session) {
+        dirty.put(telegramId, session);
+    }
+
+    @Scheduled(fixedDelayString = "${swipe.sessions.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        List<SwipeSession> pending = new ArrayList<>();
+        List<SwipeSessionEntity> rows = new ArrayList<>();
+        for (Long telegramId : List.copyOf(dirty.keySet())) {
+            SwipeSession session = dirty.remove(telegramId);
+            if (session == null) {
+                continue;
+            }
+            try {
+                rows.add(serialize(telegramId, session));
+                ids.add(telegramId);
+                pending.add(session);
+            } catch (JsonProcessingException ex) {
+                log.error("swipe_session_serialize_failed telegramId={}", telegramId, ex);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        boolean[] applied;
+        try {
+            applied = repository.upsertAllIfVersionMatches(rows);
+        } catch (RuntimeException ex) {
+            log.warn("swipe_session_flush_failed sessions={}", rows.size(), ex);
+            for (int i = 0; i < ids.size(); i++) {
+                dirty.putIfAbsent(ids.get(i), pending.get(i));
+            }
+            return;
+        }
+
+        for (int i = 0; i < applied.length; i++) {
+            SwipeSession session = pending.get(i);
+            if (applied[i]) {
+                synchronized (session) {
+                    session.persistedVersion(rows.get(i).getVersion());
+                }
+            } else {
+                log.info("swipe_session_version_conflict telegramId={}", ids.get(i));
+                resolveConflict(ids.get(i), session);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void catchUpIfDue(Long telegramId, SwipeSession cached) {
+        long now = System.currentTimeMillis();
+        long known;
+        synchronized (cached) {
+            if (now - cached.versionCheckedAtMillis() < versionCheckMillis) {
+                return;
+            }
+            cached.versionCheckedAtMillis(now);
+            known = cached.persistedVersion();
+        }
+        if (repository.findVersion(telegramId).map(stored -> stored > known).orElse(false)) {
+            repository.findById(telegramId).ifPresent(stored -> merge(telegramId, cached, restore(stored)));
+        }
+    }
+
+    /**
+     * The row moved on under this node: rebase the local session onto it and write it again, so
+     * local swipes and queue changes are kept instead of dropped.
+     */
+    private void resolveConflict(Long telegramId, SwipeSession session) {
+        try {
+            repository.findById(telegramId).ifPresent(stored -> merge(telegramId, session, restore(stored)));
+        } catch (RuntimeException ex) {
+            log.warn("swipe_session_conflict_reload_failed telegramId={}", telegramId, ex);
+        }
+        dirty.putIfAbsent(telegramId, session);
+    }
+
+    /**
+     * Folds a newer stored copy into the local session. Cards swiped on the other node leave the
+     * local queue and join its history, cards it fetched are appended, and the local session takes
+     * over the stored version. Unflushed local feed position wins over the stored one. The queue
+     * version stays local: the folded changes are recorded as ordinary ops, so clients of this node
+     * keep receiving deltas, while the other node's numbering lives in its own epoch.
+     */
+    private void merge(Long telegramId, SwipeSession local, SwipeSession stored) {
+        synchronized (local) {
+            if (stored.persistedVersion() <= local.persistedVersion()) {
+                return;
+            }
+            boolean localChanges = dirty.containsKey(telegramId);
+            Set<Long> swiped = new HashSet<>();
+            for (SwipeHistoryEntry entry : local.history()) {
+                swiped.add(entry.item().profile().telegramId());
+            }
+            List<SwipeHistoryEntry> remoteSwipes = new ArrayList<>();
+            for (SwipeHistoryEntry entry : stored.history()) {
+                Long id = entry.item().profile().telegramId();
+                if (swiped.add(id)) {
+                    local.removeCard(id);
+                    remoteSwipes.add(entry);
+                }
+            }
+            // Swipes made elsewhere are older than anything unflushed here.
+            for (int i = remoteSwipes.size() - 1; i >= 0; i--) {
+                local.history().addFirst(remoteSwipes.get(i));
+            }
+            for (SwipeQueueItem item : stored.queue().view()) {
+                if (!swiped.contains(item.profile().telegramId())) {
+                    local.appendCard(item);
+                }
+            }
+            if (!localChanges) {
+                local.feedCursor(stored.feedCursor());
+                local.feedExhausted(stored.feedExhausted());
+            }
+            local.persistedVersion(stored.persistedVersion());
+        }
+    }
+
+    private SwipeSessionEntity serialize(Long telegramId, SwipeSession session) throws JsonProcessingException {
+        synchronized (session) {
+            return SwipeSessionEntity.builder()
+                .telegramId(telegramId)
+                .queue(objectMapper.writeValueAsString(session.queue().view()))
+                .history(objectMapper.writeValueAsString(session.history()))
+                .feedCursor(session.feedCursor())
+                .feedExhausted(session.feedExhausted())
+                .queueVersion(session.queueVersion())
+                .version(session.persistedVersion() + 1)
+                .updatedAt(OffsetDateTime.now())
+                .build();
+        }
+    }
+
+    private SwipeSession restore(SwipeSessionEntity entity) {
+        try {
+            SwipeSession session = new SwipeSession(
+                objectMapper.readValue(entity.getQueue(), ITEMS),
+                objectMapper.readValue(entity.getHistory(), HISTORY),
+                entity.getVersion()
+            );
+            session.feedCursor(entity.getFeedCursor());
+            session.feedExhausted(entity.isFeedExhausted());
+            session.queueVersion(entity.getQueueVersion());
+            return session;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Corrupted swipe session " + entity.getTelegramId(), ex);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dating.backend.chat;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands messages straight to the configured STOMP broker: node-local for the simple broker,
+ * cluster-wide when the broker relay is enabled.
+ */
+@Component
+@ConditionalOnExpression("'${chat.broker.mode:simple}' != 'postgres'")
+public class BrokerChatFanout implements ChatFanout {
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public BrokerChatFanout(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void publish(ChatMessage message) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + message.getMatchId(), message);
+    }
+
+    @Override
+    public void publish(Long matchId, ChatEvent event) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + matchId, event);
+    }
+}
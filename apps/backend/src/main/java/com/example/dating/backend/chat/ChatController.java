@@ -3,35 +3,52 @@ package com.example.dating.backend.chat;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.security.Principal;
-import java.util.List;
 
 @RestController
 public class ChatController {
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatFanout chatFanout;
+    private final ChatPresenceCoalescer presence;
 
-    public ChatController(ChatService chatService, SimpMessagingTemplate messagingTemplate) {
+    public ChatController(ChatService chatService, ChatFanout chatFanout, ChatPresenceCoalescer presence) {
         this.chatService = chatService;
-        this.messagingTemplate = messagingTemplate;
+        this.chatFanout = chatFanout;
+        this.presence = presence;
     }
 
     @GetMapping("/api/chat/{matchId}/history")
-    public List<ChatMessage> history(@PathVariable Long matchId) {
-        return chatService.getHistory(matchId);
+    public ChatHistoryPage history(@PathVariable Long matchId,
+                                   @RequestParam(value = "before", required = false) Long before,
+                                   @RequestParam(value = "limit", required = false) Integer limit) {
+        return chatService.getHistoryPage(matchId, before, limit);
     }
 
     @MessageMapping("/chat/{matchId}")
     public void handle(@DestinationVariable Long matchId, @Payload ChatPayload payload, Principal principal) {
         Long telegramId = Long.valueOf(principal.getName());
         ChatMessage saved = chatService.sendMessage(matchId, telegramId, payload.body());
-        messagingTemplate.convertAndSend("/topic/chat/" + matchId, saved);
+        chatFanout.publish(saved);
+    }
+
+    @MessageMapping("/chat/{matchId}/typing")
+    public void typing(@DestinationVariable Long matchId, @Payload TypingPayload payload, Principal principal) {
+        presence.typing(matchId, Long.valueOf(principal.getName()), payload.typing());
+    }
+
+    @MessageMapping("/chat/{matchId}/read")
+    public void read(@DestinationVariable Long matchId, @Payload ReadPayload payload, Principal principal) {
+        presence.read(matchId, Long.valueOf(principal.getName()), payload.lastReadMessageId());
     }
 
     public record ChatPayload(String body) {}
+
+    public record TypingPayload(boolean typing) {}
+
+    public record ReadPayload(long lastReadMessageId) {}
 }
@@ -0,0 +1,20 @@
+package com.example.dating.backend.chat;
+
+import java.time.Instant;
+
+/**
+ * Presence event published on {@code /topic/chat/{matchId}} next to chat messages. {@code type}
+ * is {@code typing} (with {@code typing}) or {@code read} (with {@code lastReadMessageId}).
+ */
+public record ChatEvent(String type, Long userId, Boolean typing, Long lastReadMessageId, Instant at) {
+    static final String TYPING = "typing";
+    static final String READ = "read";
+
+    static ChatEvent typing(long userId, boolean typing, Instant at) {
+        return new ChatEvent(TYPING, userId, typing, null, at);
+    }
+
+    static ChatEvent read(long userId, long lastReadMessageId, Instant at) {
+        return new ChatEvent(READ, userId, null, lastReadMessageId, at);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.dating.backend.chat;
+
+/**
+ * Delivers chat payloads to every subscriber of {@code /topic/chat/{matchId}}, whichever node
+ * they are connected to.
+ */
+public interface ChatFanout {
+    String TOPIC_PREFIX = "/topic/chat/";
+
+    void publish(ChatMessage message);
+
+    void publish(Long matchId, ChatEvent event);
+}
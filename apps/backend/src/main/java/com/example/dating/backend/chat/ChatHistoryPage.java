@@ -0,0 +1,9 @@
+package com.example.dating.backend.chat;
+
+import java.util.List;
+
+/**
+ * Newest-first page of a conversation. {@code nextBefore} is the id to pass as {@code before}
+ * for the next (older) page, or {@code null} when the beginning of the chat was reached.
+ */
+public record ChatHistoryPage(List<ChatMessageView> items, Long nextBefore) {}
@@ -0,0 +1,41 @@
+package com.example.dating.backend.chat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands out chat message ids from blocks reserved on the {@code chat_messages} id sequence, so
+ * a message can be broadcast with its final id before it is written.
+ *
+ * <p>Ids are unique but only follow send order within one node: with several nodes, an earlier
+ * message can get a higher id than a later one. Anything ordering messages, including read
+ * cursors and unread counts, must use {@code (created_at, id)}, never the id alone.
+ */
+@Component
+public class ChatIdAllocator {
+    private static final String RESERVE_SQL =
+            "SELECT nextval(pg_get_serial_sequence('chat_messages', 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private long[] block = new long[0];
+    private int next;
+
+    public ChatIdAllocator(JdbcTemplate jdbcTemplate,
+                           @Value("${chat.persistence.id-block-size:1000}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long nextId() {
+        if (next == block.length) {
+            List<Long> ids = jdbcTemplate.queryForList(RESERVE_SQL, Long.class, blockSize);
+            block = ids.stream().mapToLong(Long::longValue).toArray();
+            next = 0;
+        }
+        return block[next++];
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.dating.backend.chat;
+
+import com.example.dating.backend.match.MatchRepository;
+import com.example.dating.backend.user.User;
+import com.example.dating.backend.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Caches the two immutable lookups chat writes need: telegram id to internal user id, and match
+ * id to its two members. Misses are not cached. Callers that delete users or matches must
+ * invalidate the corresponding entry.
+ */
+@Component
+public class ChatMembershipResolver {
+    private final MatchRepository matchRepository;
+    private final UserRepository userRepository;
+    private final Cache<Long, long[]> matchMembers;
+    private final Cache<Long, Long> userIds;
+
+    public ChatMembershipResolver(MatchRepository matchRepository, UserRepository userRepository,
+                                  @Value("${chat.membership-cache.max-size:200000}") long maxSize) {
+        this.matchRepository = matchRepository;
+        this.userRepository = userRepository;
+        this.matchMembers = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.userIds = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public long userId(Long telegramId) {
+        Long userId = userIds.get(telegramId, id -> userRepository.findByTelegramId(id).map(User::getId).orElse(null));
+        if (userId == null) {
+            throw new NoSuchElementException("User not found");
+        }
+        return userId;
+    }
+
+    public boolean isMember(Long matchId, long userId) {
+        long[] members = matchMembers.get(matchId, id -> matchRepository.findById(id)
+                .map(match -> new long[] {match.getUser1Id(), match.getUser2Id()})
+                .orElse(null));
+        if (members == null) {
+            throw new NoSuchElementException("Match not found");
+        }
+        return members[0] == userId || members[1] == userId;
+    }
+
+    public void invalidateMatch(Long matchId) {
+        matchMembers.invalidate(matchId);
+    }
+
+    public void invalidateUser(Long telegramId) {
+        userIds.invalidate(telegramId);
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.dating.backend.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write path for chat messages. In {@code sync} mode messages are inserted before they are
+ * broadcast. In {@code async} mode they are appended to a local {@link ChatWriteAheadLog},
+ * acknowledged immediately and inserted in micro-batches; whatever the log still holds on
+ * startup is replayed first. Inserts carry pre-allocated ids and skip duplicates, so a batch that
+ * committed right before a crash is harmless to replay. A batch rejected for its data, during a
+ * flush or a replay, is split until the offending messages are isolated; those are dropped and
+ * counted as dead letters. Any other flush failure keeps the batch for the next flush.
+ *
+ * <p>Until its batch commits, an async message is only visible through {@link #pending(Long)}, and
+ * work that needs the row in the database can wait for it with {@link #whenDurable}.
+ */
+@Component
+public class ChatMessagePersister {
+    private static final Logger log = LoggerFactory.getLogger(ChatMessagePersister.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO chat_messages (id, match_id, from_user_id, body, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatIdAllocator idAllocator;
+    private final boolean async;
+    private final int batchSize;
+    private final ChatWriteAheadLog wal;
+    private final Counter deadLetters;
+    private final Queue<Pending> queue = new ArrayDeque<>();
+    private final Map<Long, InFlight> inFlight = new ConcurrentHashMap<>();
+    private List<Pending> unflushed = List.of();
+
+    public ChatMessagePersister(JdbcTemplate jdbcTemplate,
+                                ChatIdAllocator idAllocator,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.persistence.mode:sync}") String mode,
+                                @Value("${chat.persistence.batch-size:500}") int batchSize,
+                                @Value("${chat.persistence.wal-path:data/chat-wal.log}") String walPath,
+                                @Value("${chat.persistence.wal-size-bytes:67108864}") int walSizeBytes,
+                                @Value("${chat.persistence.wal-fsync:false}") boolean walFsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.async = "async".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.deadLetters = meterRegistry.counter("chat.persistence.dead_letters");
+        Path path = Path.of(walPath);
+        try {
+            this.wal = async || Files.exists(path) ? ChatWriteAheadLog.open(path, walSizeBytes, walFsync) : null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open chat write-ahead log " + path, ex);
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Async mode only: assigns the id, makes the message durable locally and queues the insert.
+     */
+    public ChatMessage submit(ChatMessage message) {
+        message.setId(idAllocator.nextId());
+        synchronized (queue) {
+            int offset = wal.append(message);
+            if (offset >= 0) {
+                inFlight.put(message.getId(), new InFlight(message));
+                queue.add(new Pending(message, offset));
+                return message;
+            }
+        }
+        log.warn("chat_wal_full messageId={}", message.getId());
+        insert(List.of(message));
+        return message;
+    }
+
+    /**
+     * Messages of the match that were acknowledged but are not committed yet, oldest first.
+     */
+    public List<ChatMessage> pending(Long matchId) {
+        if (inFlight.isEmpty()) {
+            return List.of();
+        }
+        return inFlight.values().stream()
+                .map(InFlight::message)
+                .filter(message -> message.getMatchId().equals(matchId))
+                .sorted(Comparator.comparing(ChatMessage::getCreatedAt).thenComparing(ChatMessage::getId))
+                .toList();
+    }
+
+    /**
+     * Runs {@code action} once the message is committed: right away when it already is (or was
+     * written synchronously), otherwise on the flush thread after its batch commits.
+     */
+    public void whenDurable(ChatMessage message, Runnable action) {
+        InFlight deferred = inFlight.computeIfPresent(message.getId(), (id, entry) -> entry.then(action));
+        if (deferred == null) {
+            action.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.persistence.flush-interval-ms:10}")
+    public synchronized void flush() {
+        if (!async) {
+            return;
+        }
+        if (unflushed.isEmpty()) {
+            List<Pending> drained = new ArrayList<>();
+            synchronized (queue) {
+                while (drained.size() < batchSize && !queue.isEmpty()) {
+                    drained.add(queue.poll());
+                }
+            }
+            unflushed = drained;
+        }
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        Set<ChatMessage> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<ChatMessage> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        retry.addAll(write(unflushed.stream().map(Pending::message).toList(), rejected));
+        if (retry.isEmpty()) {
+            wal.checkpoint(unflushed.get(unflushed.size() - 1).walOffset());
+        }
+        for (Pending pending : unflushed) {
+            ChatMessage message = pending.message();
+            if (retry.contains(message)) {
+                continue;
+            }
+            InFlight entry = inFlight.remove(message.getId());
+            // A dead-lettered message never reaches the database, so nothing waiting on it runs.
+            if (entry != null && !rejected.contains(message)) {
+                entry.runCallbacks();
+            }
+        }
+        unflushed = retry.isEmpty() ? List.of() : unflushed.stream().filter(p -> retry.contains(p.message())).toList();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (wal == null) {
+            return;
+        }
+        while (async && (!unflushed.isEmpty() || !queue.isEmpty())) {
+            int before = unflushed.size() + queue.size();
+            flush();
+            if (unflushed.size() + queue.size() >= before) {
+                log.error("chat_flush_stuck pending={}", before);
+                break;
+            }
+        }
+        wal.close();
+    }
+
+    @PostConstruct
+    void replay() {
+        if (wal == null) {
+            return;
+        }
+        List<ChatMessage> pending = wal.pending();
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<ChatMessage> retry = write(pending.subList(from, Math.min(pending.size(), from + batchSize)),
+                    Collections.newSetFromMap(new IdentityHashMap<>()));
+            if (!retry.isEmpty()) {
+                throw new IllegalStateException("Cannot replay the chat write-ahead log");
+            }
+        }
+        wal.checkpoint(wal.position());
+        log.info("chat_wal_replayed messages={}", pending.size());
+    }
+
+    /**
+     * Writes the batch and returns the messages that still have to be retried. Data errors are
+     * narrowed down by halving the batch; a single message that is still rejected is added to
+     * {@code rejected} and dead-lettered.
+     */
+    private List<ChatMessage> write(List<ChatMessage> batch, Set<ChatMessage> rejected) {
+        try {
+            insert(batch);
+            return List.of();
+        } catch (DataIntegrityViolationException ex) {
+            if (batch.size() == 1) {
+                ChatMessage message = batch.get(0);
+                rejected.add(message);
+                deadLetters.increment();
+                log.error("chat_flush_dead_letter messageId={} matchId={}", message.getId(), message.getMatchId(), ex);
+                return List.of();
+            }
+            int middle = batch.size() / 2;
+            List<ChatMessage> retry = new ArrayList<>(write(batch.subList(0, middle), rejected));
+            if (retry.isEmpty()) {
+                retry.addAll(write(batch.subList(middle, batch.size()), rejected));
+            } else {
+                retry.addAll(batch.subList(middle, batch.size()));
+            }
+            return retry;
+        } catch (RuntimeException ex) {
+            log.warn("chat_flush_failed size={}", batch.size(), ex);
+            return batch;
+        }
+    }
+
+    private void insert(List<ChatMessage> messages) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setLong(1, message.getId());
+            ps.setLong(2, message.getMatchId());
+            ps.setLong(3, message.getFromUserId());
+            ps.setString(4, message.getBody());
+            ps.setObject(5, message.getCreatedAt());
+        });
+    }
+
+    private record Pending(ChatMessage message, int walOffset) {}
+
+    private record InFlight(ChatMessage message, List<Runnable> callbacks) {
+        InFlight(ChatMessage message) {
+            this(message, new ArrayList<>());
+        }
+
+        InFlight then(Runnable action) {
+            callbacks.add(action);
+            return this;
+        }
+
+        void runCallbacks() {
+            for (Runnable callback : callbacks) {
+                try {
+                    callback.run();
+                } catch (RuntimeException ex) {
+                    log.warn("chat_durable_callback_failed messageId={}", message.getId(), ex);
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,44 @@
 package com.example.dating.backend.chat;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findByMatchIdOrderByCreatedAtAsc(Long matchId);
+    @Query(value = """
+            SELECT c.id AS "id", c.from_user_id AS "fromUserId", c.body AS "body", c.created_at AS "createdAt"
+            FROM chat_messages c
+            WHERE c.match_id = :matchId
+            ORDER BY c.created_at DESC, c.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessageRow> findLatest(@Param("matchId") Long matchId, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT c.id AS "id", c.from_user_id AS "fromUserId", c.body AS "body", c.created_at AS "createdAt"
+            FROM chat_messages c
+            JOIN chat_messages b ON b.id = :beforeId AND b.match_id = :matchId
+            WHERE c.match_id = :matchId
+              AND (c.created_at, c.id) < (b.created_at, b.id)
+            ORDER BY c.created_at DESC, c.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessageRow> findBefore(@Param("matchId") Long matchId,
+                                    @Param("beforeId") Long beforeId,
+                                    @Param("limit") int limit);
+
+    @Query("SELECT c.createdAt FROM ChatMessage c WHERE c.id = :messageId AND c.matchId = :matchId")
+    Optional<OffsetDateTime> findCreatedAt(@Param("matchId") Long matchId, @Param("messageId") Long messageId);
+
+    interface ChatMessageRow {
+        Long getId();
+        Long getFromUserId();
+        String getBody();
+        Instant getCreatedAt();
+    }
 }
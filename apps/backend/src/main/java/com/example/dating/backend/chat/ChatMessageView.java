@@ -0,0 +1,10 @@
+package com.example.dating.backend.chat;
+
+import java.time.Instant;
+
+public record ChatMessageView(Long id, Long fromUserId, String body, Instant createdAt) {
+    static ChatMessageView of(ChatMessage message) {
+        return new ChatMessageView(
+                message.getId(), message.getFromUserId(), message.getBody(), message.getCreatedAt().toInstant());
+    }
+}
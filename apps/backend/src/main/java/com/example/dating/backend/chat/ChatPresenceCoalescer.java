@@ -0,0 +1,139 @@
+package com.example.dating.backend.chat;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects typing and read events and publishes only the latest state per user and match once
+ * per flush interval, so keystrokes and scroll-driven reads cost at most one broker message per
+ * interval. Read cursors only move forward in chat order, {@code (created_at, id)}, since ids
+ * from different nodes are not chronological; they are written to {@code chat_read_cursors} on a
+ * slower schedule.
+ */
+@Component
+public class ChatPresenceCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(ChatPresenceCoalescer.class);
+
+    private static final String UPSERT_CURSOR_SQL = """
+            INSERT INTO chat_read_cursors (match_id, user_id, last_read_message_id, last_read_created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (match_id, user_id) DO UPDATE
+            SET last_read_message_id = EXCLUDED.last_read_message_id,
+                last_read_created_at = EXCLUDED.last_read_created_at,
+                updated_at = EXCLUDED.updated_at
+            WHERE chat_read_cursors.last_read_created_at IS NULL
+               OR (chat_read_cursors.last_read_created_at, chat_read_cursors.last_read_message_id)
+                  < (EXCLUDED.last_read_created_at, EXCLUDED.last_read_message_id)
+            """;
+
+    private final ChatMembershipResolver membershipResolver;
+    private final ChatFanout chatFanout;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatService chatService;
+    private final Map<Key, Boolean> typing = new ConcurrentHashMap<>();
+    private final Map<Key, ReadMark> reads = new ConcurrentHashMap<>();
+    private final Map<Key, ReadMark> unsavedCursors = new ConcurrentHashMap<>();
+
+    public ChatPresenceCoalescer(ChatMembershipResolver membershipResolver, ChatFanout chatFanout,
+                                 JdbcTemplate jdbcTemplate, ChatService chatService) {
+        this.membershipResolver = membershipResolver;
+        this.chatFanout = chatFanout;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chatService = chatService;
+    }
+
+    public void typing(Long matchId, Long telegramId, boolean isTyping) {
+        typing.put(authorize(matchId, telegramId), isTyping);
+    }
+
+    /**
+     * Records a read receipt. The id comes from the client, so it must name a message of this
+     * match; anything else would move the cursor past messages the user never saw.
+     */
+    public void read(Long matchId, Long telegramId, long lastReadMessageId) {
+        Key key = authorize(matchId, telegramId);
+        Instant createdAt = chatService.createdAtOf(matchId, lastReadMessageId);
+        if (createdAt == null) {
+            throw new IllegalArgumentException("Unknown message " + lastReadMessageId + " in match " + matchId);
+        }
+        ReadMark mark = new ReadMark(lastReadMessageId, createdAt);
+        reads.merge(key, mark, ReadMark::later);
+        unsavedCursors.merge(key, mark, ReadMark::later);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.events.flush-interval-ms:300}")
+    public void publish() {
+        Instant now = Instant.now();
+        for (Key key : List.copyOf(typing.keySet())) {
+            Boolean state = typing.remove(key);
+            if (state != null) {
+                chatFanout.publish(key.matchId(), ChatEvent.typing(key.userId(), state, now));
+            }
+        }
+        for (Key key : List.copyOf(reads.keySet())) {
+            ReadMark lastRead = reads.remove(key);
+            if (lastRead != null) {
+                chatFanout.publish(key.matchId(), ChatEvent.read(key.userId(), lastRead.messageId(), now));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.events.cursor-flush-interval-ms:5000}")
+    public synchronized void persistCursors() {
+        if (unsavedCursors.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        Map<Key, ReadMark> taken = new HashMap<>();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (Key key : List.copyOf(unsavedCursors.keySet())) {
+            ReadMark lastRead = unsavedCursors.remove(key);
+            if (lastRead != null) {
+                taken.put(key, lastRead);
+                rows.add(new Object[] {key.matchId(), key.userId(), lastRead.messageId(),
+                        OffsetDateTime.ofInstant(lastRead.createdAt(), ZoneOffset.UTC), now});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_CURSOR_SQL, rows);
+        } catch (RuntimeException ex) {
+            log.warn("chat_read_cursor_flush_failed size={}", rows.size(), ex);
+            taken.forEach((key, lastRead) -> unsavedCursors.merge(key, lastRead, ReadMark::later));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        persistCursors();
+    }
+
+    private Key authorize(Long matchId, Long telegramId) {
+        long userId = membershipResolver.userId(telegramId);
+        if (!membershipResolver.isMember(matchId, userId)) {
+            throw new IllegalStateException("Forbidden");
+        }
+        return new Key(matchId, userId);
+    }
+
+    private record Key(long matchId, long userId) {}
+
+    private record ReadMark(long messageId, Instant createdAt) {
+        static ReadMark later(ReadMark a, ReadMark b) {
+            int byTime = a.createdAt().compareTo(b.createdAt());
+            return byTime > 0 || (byTime == 0 && a.messageId() > b.messageId()) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.dating.backend.chat;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "chat_read_cursors")
+@IdClass(ChatReadCursor.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatReadCursor {
+    @Id
+    @Column(name = "match_id", nullable = false)
+    private Long matchId;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "last_read_message_id", nullable = false)
+    private Long lastReadMessageId;
+
+    @Column(name = "last_read_created_at")
+    private OffsetDateTime lastReadCreatedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private Long userId;
+    }
+}
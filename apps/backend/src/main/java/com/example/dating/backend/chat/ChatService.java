@@ -1,38 +1,103 @@
 package com.example.dating.backend.chat;
 
-import com.example.dating.backend.match.MatchRepository;
-import com.example.dating.backend.user.User;
-import com.example.dating.backend.user.UserRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ChatService {
+    static final int DEFAULT_HISTORY_PAGE = 50;
+    static final int MAX_HISTORY_PAGE = 100;
+
     private final ChatMessageRepository chatRepository;
-    private final MatchRepository matchRepository;
-    private final UserRepository userRepository;
+    private final ChatTailCache tailCache;
+    private final ChatMembershipResolver membershipResolver;
+    private final ChatMessagePersister persister;
 
-    public ChatService(ChatMessageRepository chatRepository, MatchRepository matchRepository, UserRepository userRepository) {
+    public ChatService(ChatMessageRepository chatRepository, ChatTailCache tailCache,
+                       ChatMembershipResolver membershipResolver, ChatMessagePersister persister) {
         this.chatRepository = chatRepository;
-        this.matchRepository = matchRepository;
-        this.userRepository = userRepository;
+        this.tailCache = tailCache;
+        this.membershipResolver = membershipResolver;
+        this.persister = persister;
     }
 
-    public List<ChatMessage> getHistory(Long matchId) {
-        return chatRepository.findByMatchIdOrderByCreatedAtAsc(matchId);
+    public ChatHistoryPage getHistoryPage(Long matchId, Long beforeId, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_HISTORY_PAGE : Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE);
+        List<ChatMessageView> items = tailCache.page(matchId, beforeId, pageSize,
+                id -> latest(id, tailCache.tailSize()));
+        if (items == null) {
+            items = beforeId == null
+                    ? latest(matchId, pageSize)
+                    : toViews(chatRepository.findBefore(matchId, beforeId, pageSize));
+        }
+        Long nextBefore = items.size() == pageSize ? items.get(items.size() - 1).id() : null;
+        return new ChatHistoryPage(items, nextBefore);
     }
 
     public ChatMessage sendMessage(Long matchId, Long fromTelegramId, String body) {
-        matchRepository.findById(matchId).orElseThrow();
-        User user = userRepository.findByTelegramId(fromTelegramId).orElseThrow();
+        long userId = membershipResolver.userId(fromTelegramId);
+        if (!membershipResolver.isMember(matchId, userId)) {
+            throw new IllegalStateException("Forbidden");
+        }
         ChatMessage msg = ChatMessage.builder()
                 .matchId(matchId)
-                .fromUserId(user.getId())
+                .fromUserId(userId)
                 .body(body)
-                .createdAt(OffsetDateTime.now())
+                .createdAt(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS))
                 .build();
-        return chatRepository.save(msg);
+        ChatMessage saved = persister.isAsync() ? persister.submit(msg) : chatRepository.save(msg);
+        tailCache.append(matchId, ChatMessageView.of(saved));
+        return saved;
+    }
+
+    /**
+     * Send time of a message of this match: from the cached tail, then from unflushed async sends,
+     * then from the database. {@code null} when the match has no such message.
+     */
+    Instant createdAtOf(Long matchId, long messageId) {
+        ChatMessageView cached = tailCache.find(matchId, messageId);
+        if (cached != null) {
+            return cached.createdAt();
+        }
+        for (ChatMessage message : persister.pending(matchId)) {
+            if (message.getId() == messageId) {
+                return message.getCreatedAt().toInstant();
+            }
+        }
+        return chatRepository.findCreatedAt(matchId, messageId).map(OffsetDateTime::toInstant).orElse(null);
+    }
+
+    /**
+     * Newest {@code limit} messages, including async sends whose batch has not committed yet. The
+     * pending snapshot is taken before the query, so a batch committing in between is still seen.
+     */
+    private List<ChatMessageView> latest(Long matchId, int limit) {
+        List<ChatMessage> pending = persister.pending(matchId);
+        List<ChatMessageView> stored = toViews(chatRepository.findLatest(matchId, limit));
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        Map<Long, ChatMessageView> merged = new LinkedHashMap<>();
+        stored.forEach(view -> merged.put(view.id(), view));
+        pending.forEach(message -> merged.putIfAbsent(message.getId(), ChatMessageView.of(message)));
+        List<ChatMessageView> newestFirst = new ArrayList<>(merged.values());
+        newestFirst.sort(Comparator.comparing(ChatMessageView::createdAt)
+                .thenComparing(ChatMessageView::id)
+                .reversed());
+        return newestFirst.size() > limit ? newestFirst.subList(0, limit) : newestFirst;
+    }
+
+    private static List<ChatMessageView> toViews(List<ChatMessageRepository.ChatMessageRow> rows) {
+        return rows.stream()
+                .map(row -> new ChatMessageView(row.getId(), row.getFromUserId(), row.getBody(), row.getCreatedAt()))
+                .toList();
     }
 }
@@ -0,0 +1,103 @@
+package com.example.dating.backend.chat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ring buffer holding the newest messages of one conversation, ordered by (createdAt, id).
+ * {@code complete} means the buffer has held every message of the chat since it was loaded, so a
+ * miss inside it is an authoritative "no older messages".
+ */
+final class ChatTail {
+    private final ChatMessageView[] ring;
+    private int head;
+    private int size;
+    private boolean complete;
+
+    ChatTail(int capacity, List<ChatMessageView> newestFirst, boolean complete) {
+        this.ring = new ChatMessageView[capacity];
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            append(newestFirst.get(i));
+        }
+        this.complete = complete && newestFirst.size() <= capacity;
+    }
+
+    synchronized ChatTail append(ChatMessageView message) {
+        int insertAt = size;
+        while (insertAt > 0) {
+            ChatMessageView previous = at(insertAt - 1);
+            if (previous.id().equals(message.id())) {
+                return this;
+            }
+            if (!isAfter(previous, message)) {
+                break;
+            }
+            insertAt--;
+        }
+        if (size == ring.length) {
+            if (insertAt == 0) {
+                return this;
+            }
+            head = (head + 1) % ring.length;
+            size--;
+            insertAt--;
+            complete = false;
+        }
+        for (int i = size; i > insertAt; i--) {
+            ring[slot(i)] = at(i - 1);
+        }
+        ring[slot(insertAt)] = message;
+        size++;
+        return this;
+    }
+
+    /**
+     * Newest-first page older than {@code beforeId} (or from the newest message when null), or
+     * {@code null} when the buffer cannot answer and the caller has to go to the database.
+     */
+    synchronized List<ChatMessageView> page(Long beforeId, int limit) {
+        int end = size;
+        if (beforeId != null) {
+            end = indexOf(beforeId);
+            if (end < 0) {
+                return null;
+            }
+        }
+        if (end < limit && !complete) {
+            return null;
+        }
+        int count = Math.min(limit, end);
+        List<ChatMessageView> page = new ArrayList<>(count);
+        for (int i = end - 1; i >= end - count; i--) {
+            page.add(at(i));
+        }
+        return page;
+    }
+
+    synchronized ChatMessageView find(long id) {
+        int index = indexOf(id);
+        return index < 0 ? null : at(index);
+    }
+
+    private int indexOf(long id) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (at(i).id() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ChatMessageView at(int index) {
+        return ring[slot(index)];
+    }
+
+    private int slot(int index) {
+        return (head + index) % ring.length;
+    }
+
+    private static boolean isAfter(ChatMessageView a, ChatMessageView b) {
+        int byTime = a.createdAt().compareTo(b.createdAt());
+        return byTime > 0 || (byTime == 0 && a.id() > b.id());
+    }
+}
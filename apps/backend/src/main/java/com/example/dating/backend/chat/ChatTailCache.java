@@ -0,0 +1,132 @@
+package com.example.dating.backend.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded per-match cache of the newest chat messages. Reads load the tail once and serve
+ * history pages from memory while they stay inside it; sends on this node and messages delivered
+ * by {@link PostgresChatFanout} append to tails already cached. With the STOMP relay, messages
+ * from other nodes never pass through this node, so tails expire a fixed time after loading
+ * instead of after the last read. Hit and miss counts are published as
+ * {@code cache.*{cache="chat_tail"}} meters.
+ */
+@Component
+public class ChatTailCache {
+    private static final int APPEND_STRIPES = 1024;
+
+    private final Cache<Long, ChatTail> tails;
+    private final int tailSize;
+    /** Per-stripe append counters; a load only caches its tail if no append raced with it. */
+    private final AtomicLongArray appends = new AtomicLongArray(APPEND_STRIPES);
+
+    public ChatTailCache(MeterRegistry meterRegistry,
+                         @Value("${chat.tail-cache.max-matches:50000}") long maxMatches,
+                         @Value("${chat.tail-cache.tail-size:50}") int tailSize,
+                         @Value("${chat.tail-cache.idle-ttl-ms:600000}") long idleTtlMillis,
+                         @Value("${chat.tail-cache.relay-ttl-ms:2000}") long relayTtlMillis,
+                         @Value("${chat.broker.mode:simple}") String brokerMode) {
+        this.tailSize = tailSize;
+        this.tails = Caffeine.newBuilder()
+                .maximumSize(maxMatches)
+                .expireAfter("relay".equalsIgnoreCase(brokerMode)
+                        ? new SinceLoad(Duration.ofMillis(relayTtlMillis).toNanos())
+                        : new SinceAccess(Duration.ofMillis(idleTtlMillis).toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tails, "chat_tail");
+    }
+
+    int tailSize() {
+        return tailSize;
+    }
+
+    /**
+     * Serves a page from the cached tail, loading it with {@code loader} (newest-first, at most
+     * {@link #tailSize()} rows) on a miss. Returns {@code null} when the page reaches past the tail.
+     * The loader runs outside the cache; its tail is only published if no message was appended
+     * to the match meanwhile, otherwise it serves this page and the next read loads again.
+     */
+    List<ChatMessageView> page(Long matchId, Long beforeId, int limit, Function<Long, List<ChatMessageView>> loader) {
+        if (limit > tailSize) {
+            return null;
+        }
+        ChatTail tail = tails.getIfPresent(matchId);
+        if (tail == null) {
+            int stripe = stripeFor(matchId);
+            long appendsBefore = appends.get(stripe);
+            List<ChatMessageView> newest = loader.apply(matchId);
+            ChatTail loaded = new ChatTail(tailSize, newest, newest.size() < tailSize);
+            // Checked inside compute, which append's computeIfPresent cannot interleave with.
+            ChatTail cached = tails.asMap().compute(matchId, (id, existing) ->
+                    existing != null ? existing : appends.get(stripe) == appendsBefore ? loaded : null);
+            tail = cached != null ? cached : loaded;
+        }
+        return tail.page(beforeId, limit);
+    }
+
+    void append(Long matchId, ChatMessageView message) {
+        appends.incrementAndGet(stripeFor(matchId));
+        tails.asMap().computeIfPresent(matchId, (id, tail) -> tail.append(message));
+    }
+
+    /** The message if it is in the cached tail of its match, otherwise {@code null}. */
+    ChatMessageView find(Long matchId, long messageId) {
+        ChatTail tail = tails.getIfPresent(matchId);
+        return tail == null ? null : tail.find(messageId);
+    }
+
+    /** Drops every tail, for when messages may have been delivered without passing through here. */
+    void invalidateAll() {
+        tails.invalidateAll();
+    }
+
+    private static int stripeFor(Long matchId) {
+        return (Long.hashCode(matchId) & 0x7fffffff) % APPEND_STRIPES;
+    }
+
+    private record SinceAccess(long ttlNanos) implements Expiry<Long, ChatTail> {
+        @Override
+        public long expireAfterCreate(Long key, ChatTail value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, ChatTail value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(Long key, ChatTail value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+    }
+
+    /** Appends keep the original deadline, so a busy chat still reloads every {@code ttlNanos}. */
+    private record SinceLoad(long ttlNanos) implements Expiry<Long, ChatTail> {
+        @Override
+        public long expireAfterCreate(Long key, ChatTail value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, ChatTail value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long key, ChatTail value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.dating.backend.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-size memory-mapped append log for chat messages that were acknowledged but not yet
+ * committed to Postgres. The header holds the offset up to which records are known to be in the
+ * database; everything after it is replayed on startup. Each record is
+ * {@code [int length][int crc32][payload]} and is followed by a zero length marker, so replay
+ * stops at the first incomplete or stale record.
+ *
+ * <p>Writes land in the page cache, which survives a process crash. {@code fsync} additionally
+ * forces every append to disk to survive a host crash, at the cost of latency.
+ */
+final class ChatWriteAheadLog implements AutoCloseable {
+    private static final int MAGIC = 0x43574131;
+    private static final int HEADER_BYTES = 16;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 32;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean fsync;
+    private int position;
+
+    private ChatWriteAheadLog(FileChannel channel, MappedByteBuffer buffer, boolean fsync) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.fsync = fsync;
+    }
+
+    static ChatWriteAheadLog open(Path path, int sizeBytes, boolean fsync) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(channel.size(), sizeBytes);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        ChatWriteAheadLog log = new ChatWriteAheadLog(channel, buffer, fsync);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            log.reset();
+        }
+        log.pending();
+        return log;
+    }
+
+    /**
+     * Records after the checkpoint, oldest first. Leaves the write position after the last valid
+     * record so new appends do not overwrite anything still unreplayed.
+     */
+    synchronized List<ChatMessage> pending() {
+        List<ChatMessage> messages = new ArrayList<>();
+        int offset = checkpoint();
+        while (offset + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < FIXED_PAYLOAD_BYTES || offset + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, payload);
+            if (crc(payload) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            messages.add(decode(payload));
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        position = offset;
+        return messages;
+    }
+
+    /**
+     * Appends the message and returns the offset just past it, or {@code -1} when the log is full.
+     */
+    synchronized int append(ChatMessage message) {
+        byte[] payload = encode(message);
+        int end = position + RECORD_HEADER_BYTES + payload.length;
+        if (end + 4 > buffer.capacity()) {
+            return -1;
+        }
+        buffer.putInt(end, 0);
+        buffer.put(position + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(position + 4, crc(payload));
+        buffer.putInt(position, payload.length);
+        position = end;
+        if (fsync) {
+            buffer.force();
+        }
+        return end;
+    }
+
+    /**
+     * Marks everything before {@code offset} as committed. Once the log is fully drained past the
+     * halfway mark it wraps back to the start.
+     */
+    synchronized void checkpoint(int offset) {
+        if (offset == position && position > buffer.capacity() / 2) {
+            reset();
+            position = HEADER_BYTES;
+        } else {
+            buffer.putLong(CHECKPOINT_OFFSET, offset);
+        }
+        if (fsync) {
+            buffer.force();
+        }
+    }
+
+    synchronized int position() {
+        return position;
+    }
+
+    synchronized int checkpoint() {
+        return (int) buffer.getLong(CHECKPOINT_OFFSET);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void reset() {
+        buffer.putInt(HEADER_BYTES, 0);
+        buffer.putLong(CHECKPOINT_OFFSET, HEADER_BYTES);
+    }
+
+    private static byte[] encode(ChatMessage message) {
+        byte[] body = message.getBody().getBytes(StandardCharsets.UTF_8);
+        Instant createdAt = message.getCreatedAt().toInstant();
+        return ByteBuffer.allocate(FIXED_PAYLOAD_BYTES + body.length)
+                .putLong(message.getId())
+                .putLong(message.getMatchId())
+                .putLong(message.getFromUserId())
+                .putLong(ChronoUnit.MICROS.between(Instant.EPOCH, createdAt))
+                .put(body)
+                .array();
+    }
+
+    private static ChatMessage decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        long id = in.getLong();
+        long matchId = in.getLong();
+        long fromUserId = in.getLong();
+        long createdAtMicros = in.getLong();
+        String body = new String(payload, FIXED_PAYLOAD_BYTES, payload.length - FIXED_PAYLOAD_BYTES, StandardCharsets.UTF_8);
+        return ChatMessage.builder()
+                .id(id)
+                .matchId(matchId)
+                .fromUserId(fromUserId)
+                .body(body)
+                .createdAt(OffsetDateTime.ofInstant(Instant.EPOCH.plus(createdAtMicros, ChronoUnit.MICROS), ZoneOffset.UTC))
+                .build();
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.dating.backend.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Fans chat messages out between nodes through Postgres {@code LISTEN/NOTIFY}, so horizontal
+ * scaling needs no broker beyond the database. The sending node delivers to its own simple broker
+ * directly; every other node receives the notification on a dedicated listening connection and
+ * delivers it to its local broker and its {@link ChatTailCache}, skipping notifications tagged with
+ * its own origin. Tails are dropped whenever the listener (re)connects, since notifications sent
+ * while it was away are lost.
+ * Messages too large for a notification payload travel as an id and are loaded by receivers, so
+ * that notification is only sent once {@link ChatMessagePersister} has committed the row.
+ * Presence events always fit and travel inline.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "postgres")
+public class PostgresChatFanout implements ChatFanout {
+    private static final Logger log = LoggerFactory.getLogger(PostgresChatFanout.class);
+
+    static final String CHANNEL = "chat_fanout";
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatMessageRepository chatRepository;
+    private final ChatMessagePersister persister;
+    private final ChatTailCache tailCache;
+    private final String channel;
+    private final String origin = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresChatFanout(DataSource dataSource,
+                              JdbcTemplate jdbcTemplate,
+                              SimpMessagingTemplate messagingTemplate,
+                              ObjectMapper objectMapper,
+                              ChatMessageRepository chatRepository,
+                              ChatMessagePersister persister,
+                              ChatTailCache tailCache,
+                              @Value("${chat.broker.postgres.channel:" + CHANNEL + "}") String channel) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.chatRepository = chatRepository;
+        this.persister = persister;
+        this.tailCache = tailCache;
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listener = new Thread(this::listen, "chat-fanout-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(POLL_TIMEOUT_MS * 2L);
+    }
+
+    @Override
+    public void publish(ChatMessage message) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + message.getMatchId(), message);
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new Envelope(origin, message.getMatchId(), message.getId(), message, null));
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                String byId = objectMapper.writeValueAsString(new Envelope(origin, message.getMatchId(), message.getId(), null, null));
+                persister.whenDurable(message, () -> sendNotification(byId));
+                return;
+            }
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize chat message " + message.getId(), ex);
+        }
+        sendNotification(payload);
+    }
+
+    @Override
+    public void publish(Long matchId, ChatEvent event) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + matchId, event);
+        try {
+            sendNotification(objectMapper.writeValueAsString(new Envelope(origin, matchId, null, null, event)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize chat event for match " + matchId, ex);
+        }
+    }
+
+    private void sendNotification(String payload) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                tailCache.invalidateAll();
+                log.info("chat_fanout_listening channel={}", channel);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("chat_fanout_listener_failed channel={}", channel, ex);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void deliver(String payload) {
+        try {
+            Envelope envelope = objectMapper.readValue(payload, Envelope.class);
+            if (origin.equals(envelope.origin())) {
+                return;
+            }
+            if (envelope.event() != null) {
+                messagingTemplate.convertAndSend(TOPIC_PREFIX + envelope.matchId(), envelope.event());
+                return;
+            }
+            ChatMessage message = envelope.message() != null
+                    ? envelope.message()
+                    : chatRepository.findById(envelope.messageId()).orElse(null);
+            if (message == null) {
+                log.warn("chat_fanout_message_missing messageId={}", envelope.messageId());
+                return;
+            }
+            tailCache.append(envelope.matchId(), ChatMessageView.of(message));
+            messagingTemplate.convertAndSend(TOPIC_PREFIX + envelope.matchId(), message);
+        } catch (JsonProcessingException | RuntimeException ex) {
+            log.warn("chat_fanout_delivery_failed", ex);
+        }
+    }
+
+    record Envelope(String origin, Long matchId, Long messageId, ChatMessage message, ChatEvent event) {}
+}
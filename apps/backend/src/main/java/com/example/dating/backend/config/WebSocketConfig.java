@@ -1,14 +1,66 @@
 package com.example.dating.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code chat.broker.mode} selects how {@code /topic} is served: {@code simple} and
+ * {@code postgres} use the in-memory broker (the latter fans out between nodes through
+ * {@code PostgresChatFanout}); {@code relay} forwards to an external STOMP broker.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+    @Value("${chat.broker.relay.host:localhost}")
+    private String relayHost;
+    @Value("${chat.broker.relay.port:61613}")
+    private int relayPort;
+    @Value("${chat.broker.relay.login:guest}")
+    private String relayLogin;
+    @Value("${chat.broker.relay.passcode:guest}")
+    private String relayPasscode;
+    @Value("${chat.ws.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+    @Value("${chat.ws.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+    @Value("${chat.ws.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+    @Value("${chat.ws.outbound.core-pool-size:4}")
+    private int outboundCorePoolSize;
+    @Value("${chat.ws.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+    @Value("${chat.ws.outbound.queue-capacity:1000}")
+    private int outboundQueueCapacity;
+    @Value("${chat.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMillis;
+    @Value("${chat.ws.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+    @Value("${chat.ws.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    public WebSocketConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("chat.ws.sessions.open", openSessions);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws/chat").setAllowedOriginPatterns("*");
@@ -16,7 +68,69 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            registry.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            registry.enableSimpleBroker("/topic");
+        }
         registry.setApplicationDestinationPrefixes("/app");
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(this::instrument);
+    }
+
+    private WebSocketHandler instrument(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                meterRegistry.counter("chat.ws.sessions.closed", "reason", closeReason(closeStatus)).increment();
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private static String closeReason(CloseStatus status) {
+        // SESSION_NOT_RELIABLE is what the session decorator uses when a send exceeded the time or buffer limit.
+        if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(status)) {
+            return "slow";
+        }
+        if (CloseStatus.NORMAL.equalsCode(status) || CloseStatus.GOING_AWAY.equalsCode(status)) {
+            return "normal";
+        }
+        return "error";
+    }
 }
@@ -24,4 +24,33 @@ public interface GeoLocationRepository extends JpaRepository<GeoLocation, Long>
             @Param("radiusMeters") double radiusMeters,
             @Param("limit") int limit
     );
+
+    /**
+     * Nearest candidates after the (distance, user_id) cursor, in KNN order on the GiST index.
+     * The scan starts at the viewer, so rows nearer than the cursor are read and skipped.
+     */
+    @Query(value = """
+            SELECT g.user_id AS "userId",
+                   g.point <-> ST_SetSRID(ST_MakePoint(:lon, :lat), 4326)::geography AS "distanceMeters",
+                   g.updated_at AS "updatedAt"
+            FROM geo g
+            JOIN profiles p ON p.user_id = g.user_id
+            WHERE g.user_id <> :viewerId
+              AND NOT EXISTS (
+                  SELECT 1 FROM swipe_events e
+                  WHERE e.from_user_id = :viewerId AND e.to_user_id = g.user_id
+              )
+              AND (g.point <-> ST_SetSRID(ST_MakePoint(:lon, :lat), 4326)::geography, g.user_id)
+                  > (:afterDistance, :afterUserId)
+            ORDER BY g.point <-> ST_SetSRID(ST_MakePoint(:lon, :lat), 4326)::geography, g.user_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<NearbyCandidate> findNearestCandidates(
+            @Param("viewerId") Long viewerId,
+            @Param("lat") double latitude,
+            @Param("lon") double longitude,
+            @Param("afterDistance") double afterDistanceMeters,
+            @Param("afterUserId") long afterUserId,
+            @Param("limit") int limit
+    );
 }
@@ -0,0 +1,11 @@
+package com.example.dating.backend.geo;
+
+import java.time.Instant;
+
+public interface NearbyCandidate {
+    Long getUserId();
+
+    Double getDistanceMeters();
+
+    Instant getUpdatedAt();
+}
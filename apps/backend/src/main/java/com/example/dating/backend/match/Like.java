@@ -5,7 +5,12 @@ import lombok.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "likes", uniqueConstraints = @UniqueConstraint(columnNames = {"from_user_id","to_user_id"}))
+@Table(name = "likes",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"from_user_id","to_user_id"}),
+        indexes = {
+                @Index(name = "idx_likes_to_user", columnList = "to_user_id, from_user_id"),
+                @Index(name = "idx_likes_created_at", columnList = "created_at")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,230 @@
+package com.example.dating.backend.match;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * "Who liked me" index shared by all nodes: for each internal user id, the ids of users who liked
+ * them.
+ *
+ * <p>Nothing writes to it directly. Every statement that inserts or archives likes also calls
+ * {@code pg_notify('like_index', ...)} in its own transaction. Postgres delivers that notification
+ * only once the transaction commits, and to every node, the writer included. A listener thread
+ * applies the changes. On start and after every reconnect it subscribes first, then rebuilds the
+ * index from {@code likes}, then applies what arrived meanwhile, so no commit falls between scan
+ * and subscription. Lookups are authoritative only while {@link #isReady()}; callers go to the
+ * database otherwise.
+ *
+ * <p>The index trails commits by the notification latency. A batched like that misses a
+ * reciprocal like committed a moment earlier is queued instead of matched synchronously, and the
+ * batch insert then creates the match from the committed pair mask.
+ */
+@Slf4j
+@Component
+public class LikeIndex {
+    static final String CHANNEL = "like_index";
+    /** Keeps payloads below the 8000-byte notification limit; the batch insert SQL uses the same. */
+    static final int CHANGES_PER_NOTIFICATION = 150;
+
+    private static final int WARMUP_FETCH_SIZE = 10_000;
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private volatile Map<Long, LongHashSet> likedBy = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile boolean running;
+    private Thread listener;
+
+    public LikeIndex(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${swipe.like-index.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "like-index-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        ready = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(POLL_TIMEOUT_MS * 2L);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean hasLiked(long fromUserId, long toUserId) {
+        LongHashSet set = likedBy.get(toUserId);
+        if (set == null) {
+            return false;
+        }
+        synchronized (set) {
+            return set.contains(fromUserId);
+        }
+    }
+
+    public int likedByCount(long userId) {
+        LongHashSet set = likedBy.get(userId);
+        if (set == null) {
+            return 0;
+        }
+        synchronized (set) {
+            return set.size();
+        }
+    }
+
+    /**
+     * Announces archived likes in the caller's transaction, so nodes drop them once it commits.
+     */
+    public void publishRemoved(List<long[]> likes) {
+        if (!enabled) {
+            return;
+        }
+        for (int from = 0; from < likes.size(); from += CHANGES_PER_NOTIFICATION) {
+            StringBuilder payload = new StringBuilder();
+            for (long[] like : likes.subList(from, Math.min(likes.size(), from + CHANGES_PER_NOTIFICATION))) {
+                if (!payload.isEmpty()) {
+                    payload.append(',');
+                }
+                payload.append('-').append(like[0]).append(':').append(like[1]);
+            }
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload.toString());
+        }
+    }
+
+    /**
+     * Applies a notification payload: comma-separated {@code +from:to} and {@code -from:to} changes.
+     */
+    void apply(String payload) {
+        apply(likedBy, payload);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                rebuild();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                // Changes may have been missed; stop answering until the next rebuild.
+                ready = false;
+                if (!running) {
+                    return;
+                }
+                log.warn("like_index_listener_failed", ex);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rebuild() throws SQLException {
+        ready = false;
+        long started = System.currentTimeMillis();
+        Map<Long, LongHashSet> fresh = new ConcurrentHashMap<>();
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            // Postgres only streams with a fetch size inside a transaction.
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("SELECT from_user_id, to_user_id FROM likes")) {
+                ps.setFetchSize(WARMUP_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        add(fresh, rs.getLong(1), rs.getLong(2));
+                        rows++;
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+        likedBy = fresh;
+        ready = true;
+        log.info("like_index_ready likes={} tookMs={}", rows, System.currentTimeMillis() - started);
+    }
+
+    private static void apply(Map<Long, LongHashSet> index, String payload) {
+        for (String change : payload.split(",")) {
+            if (change.isEmpty()) {
+                continue;
+            }
+            int colon = change.indexOf(':');
+            long fromUserId = Long.parseLong(change, 1, colon, 10);
+            long toUserId = Long.parseLong(change, colon + 1, change.length(), 10);
+            if (change.charAt(0) == '-') {
+                remove(index, fromUserId, toUserId);
+            } else {
+                add(index, fromUserId, toUserId);
+            }
+        }
+    }
+
+    private static void add(Map<Long, LongHashSet> index, long fromUserId, long toUserId) {
+        LongHashSet set = index.computeIfAbsent(toUserId, id -> new LongHashSet(8));
+        synchronized (set) {
+            set.add(fromUserId);
+        }
+    }
+
+    private static void remove(Map<Long, LongHashSet> index, long fromUserId, long toUserId) {
+        LongHashSet set = index.get(toUserId);
+        if (set == null) {
+            return;
+        }
+        synchronized (set) {
+            set.remove(fromUserId);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.dating.backend.match;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entry point for swipe likes. In {@code direct} mode every like is recorded by its own
+ * statement. In {@code batched} mode likes that do not complete a pair are parked in a bounded
+ * queue and written in one multi-row statement every few milliseconds; a like that completes a
+ * pair is still written synchronously so the caller gets the match id back.
+ *
+ * <p>Match detection asks the cluster-wide {@link LikeIndex} (or the committed pair mask in
+ * {@code like_pairs} while the index is not ready) and overlays the bits this node has not
+ * committed yet: likes waiting in the queue, and synchronous likes whose caller transaction is
+ * still open. The overlay is read and updated under a per-pair stripe lock that never spans a
+ * database call, and bits leave it only once their write committed or rolled back, so a
+ * reciprocal like on this node is never missed.
+ *
+ * <p>A batch rejected for its data is split until the offending likes are isolated; those are
+ * dropped and counted as dead letters. Any other failure keeps the batch for the next flush.
+ */
+@Slf4j
+@Component
+public class LikeIngestor {
+    private static final int LOCK_STRIPES = 256;
+
+    private final LikeRecorder likeRecorder;
+    private final LikeRepository likeRepository;
+    private final LikePairRepository likePairRepository;
+    private final LikeIndex likeIndex;
+    private final boolean batched;
+    private final int batchSize;
+    private final BlockingQueue<PendingLike> queue;
+    private final Map<PairKey, Short> queuedMasks = new ConcurrentHashMap<>();
+    private final Map<PairKey, Short> inflightMasks = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private final Counter deadLetters;
+    private List<PendingLike> unflushed = List.of();
+
+    public LikeIngestor(
+            LikeRecorder likeRecorder,
+            LikeRepository likeRepository,
+            LikePairRepository likePairRepository,
+            LikeIndex likeIndex,
+            MeterRegistry meterRegistry,
+            @Value("${swipe.ingest.mode:direct}") String mode,
+            @Value("${swipe.ingest.queue-capacity:50000}") int queueCapacity,
+            @Value("${swipe.ingest.batch-size:1000}") int batchSize) {
+        this.likeRecorder = likeRecorder;
+        this.likeRepository = likeRepository;
+        this.likePairRepository = likePairRepository;
+        this.likeIndex = likeIndex;
+        this.batched = "batched".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.deadLetters = meterRegistry.counter("likes.ingest.dead_letters");
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    public LikeRecorder.LikeOutcome submit(long fromUserId, long toUserId) {
+        if (!batched) {
+            return likeRecorder.record(fromUserId, toUserId);
+        }
+        if (fromUserId == toUserId) {
+            throw new IllegalArgumentException("Cannot like yourself");
+        }
+        PairKey pair = PairKey.of(fromUserId, toUserId);
+        short bit = fromUserId == pair.low() ? LikePair.LOW_LIKED_HIGH : LikePair.HIGH_LIKED_LOW;
+        short reciprocalBit = (short) (LikePair.MUTUAL & ~bit);
+
+        // The committed side is read before taking the stripe lock, so no database call runs under
+        // it. A reciprocal bit that commits in between is missed here, but the batch insert then
+        // creates the match from the committed pair mask.
+        boolean committed = !hasBit(pair, reciprocalBit) && isCommitted(pair, fromUserId, toUserId, reciprocalBit);
+        boolean writeReciprocalFirst;
+        synchronized (stripeFor(pair)) {
+            short queued = queuedMasks.getOrDefault(pair, (short) 0);
+            short inflight = inflightMasks.getOrDefault(pair, (short) 0);
+            boolean reciprocated = committed || ((queued | inflight) & reciprocalBit) != 0;
+            if (!reciprocated && queue.offer(new PendingLike(fromUserId, toUserId))) {
+                queuedMasks.merge(pair, bit, (a, b) -> (short) (a | b));
+                return new LikeRecorder.LikeOutcome(true, false, null);
+            }
+            writeReciprocalFirst = (queued & reciprocalBit) != 0;
+            // Claimed before the lock is released, so a reciprocal like arriving during the write
+            // also takes the synchronous path and meets this one on the pair row lock.
+            inflightMasks.merge(pair, bit, (a, b) -> (short) (a | b));
+        }
+        return recordSynchronously(pair, bit, fromUserId, toUserId, writeReciprocalFirst);
+    }
+
+    public int pending() {
+        return queue.size() + unflushed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${swipe.ingest.flush-interval-ms:5}")
+    public synchronized void flush() {
+        if (!batched) {
+            return;
+        }
+        if (unflushed.isEmpty()) {
+            List<PendingLike> drained = new ArrayList<>(Math.min(batchSize, queue.size()));
+            queue.drainTo(drained, batchSize);
+            unflushed = drained;
+        }
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        Set<PendingLike> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+        retry.addAll(write(unflushed));
+        for (PendingLike like : unflushed) {
+            if (!retry.contains(like)) {
+                clearBit(queuedMasks, PairKey.of(like.fromUserId(), like.toUserId()), like.bit());
+            }
+        }
+        unflushed = retry.isEmpty() ? List.of() : unflushed.stream().filter(retry::contains).toList();
+    }
+
+    @PreDestroy
+    public void drain() {
+        while (batched && pending() > 0) {
+            int before = pending();
+            flush();
+            if (pending() >= before) {
+                log.error("like_ingest_drain_stuck pending={}", before);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the batch and returns the likes that still have to be retried. Data errors are
+     * narrowed down by halving the batch; a single like that is still rejected is dead-lettered.
+     */
+    private List<PendingLike> write(List<PendingLike> batch) {
+        try {
+            insert(batch);
+            return List.of();
+        } catch (DataIntegrityViolationException ex) {
+            if (batch.size() == 1) {
+                PendingLike like = batch.get(0);
+                deadLetters.increment();
+                log.error("like_ingest_dead_letter from={} to={}", like.fromUserId(), like.toUserId(), ex);
+                return List.of();
+            }
+            int middle = batch.size() / 2;
+            List<PendingLike> retry = new ArrayList<>(write(batch.subList(0, middle)));
+            if (retry.isEmpty()) {
+                retry.addAll(write(batch.subList(middle, batch.size())));
+            } else {
+                retry.addAll(batch.subList(middle, batch.size()));
+            }
+            return retry;
+        } catch (RuntimeException ex) {
+            log.warn("like_ingest_flush_failed size={}", batch.size(), ex);
+            return batch;
+        }
+    }
+
+    private void insert(List<PendingLike> batch) {
+        long[] from = new long[batch.size()];
+        long[] to = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            from[i] = batch.get(i).fromUserId();
+            to[i] = batch.get(i).toUserId();
+        }
+        likeRepository.insertBatch(from, to);
+    }
+
+    /**
+     * Writes the like in the caller's transaction, its bit already in the in-flight overlay. The
+     * bit stays there until that transaction ends, so a reciprocal like arriving meanwhile is not
+     * queued as a non-match. When the other side's like is still queued it is written first, so
+     * the pair completes in the database.
+     */
+    private LikeRecorder.LikeOutcome recordSynchronously(PairKey pair, short bit, long fromUserId, long toUserId,
+                                                         boolean writeReciprocalFirst) {
+        boolean clearOnCompletion = false;
+        try {
+            if (writeReciprocalFirst) {
+                likeRecorder.record(toUserId, fromUserId);
+            }
+            LikeRecorder.LikeOutcome outcome = likeRecorder.record(fromUserId, toUserId);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        clearBit(inflightMasks, pair, bit);
+                    }
+                });
+                clearOnCompletion = true;
+            }
+            return outcome;
+        } finally {
+            if (!clearOnCompletion) {
+                clearBit(inflightMasks, pair, bit);
+            }
+        }
+    }
+
+    private void clearBit(Map<PairKey, Short> masks, PairKey pair, short bit) {
+        synchronized (stripeFor(pair)) {
+            masks.computeIfPresent(pair, (key, mask) -> {
+                short remaining = (short) (mask & ~bit);
+                return remaining == 0 ? null : remaining;
+            });
+        }
+    }
+
+    private boolean hasBit(PairKey pair, short bit) {
+        short uncommitted = (short) (queuedMasks.getOrDefault(pair, (short) 0) | inflightMasks.getOrDefault(pair, (short) 0));
+        return (uncommitted & bit) != 0;
+    }
+
+    private boolean isCommitted(PairKey pair, long fromUserId, long toUserId, short reciprocalBit) {
+        if (likeIndex.isReady()) {
+            return likeIndex.hasLiked(toUserId, fromUserId);
+        }
+        short committed = likePairRepository.findMask(pair.low(), pair.high()).orElse((short) 0);
+        return (committed & reciprocalBit) != 0;
+    }
+
+    private Object stripeFor(PairKey pair) {
+        return stripes[(pair.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    private record PendingLike(long fromUserId, long toUserId) {
+        short bit() {
+            return fromUserId < toUserId ? LikePair.LOW_LIKED_HIGH : LikePair.HIGH_LIKED_LOW;
+        }
+    }
+
+    private record PairKey(long low, long high) {
+        static PairKey of(long a, long b) {
+            return new PairKey(Math.min(a, b), Math.max(a, b));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.dating.backend.match;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * One row per unordered user pair. Bit 1 is set when the lower id liked the higher one,
+ * bit 2 for the opposite direction; both bits set means the pair matched. The row doubles
+ * as the lock that serializes concurrent likes between the same two users.
+ */
+@Entity
+@Table(name = "like_pairs")
+@IdClass(LikePair.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LikePair {
+    public static final short LOW_LIKED_HIGH = 1;
+    public static final short HIGH_LIKED_LOW = 2;
+    public static final short MUTUAL = LOW_LIKED_HIGH | HIGH_LIKED_LOW;
+
+    @Id
+    @Column(name = "user_low", nullable = false)
+    private Long userLow;
+
+    @Id
+    @Column(name = "user_high", nullable = false)
+    private Long userHigh;
+
+    @Column(name = "mask", nullable = false)
+    private short mask;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userLow;
+        private Long userHigh;
+    }
+}
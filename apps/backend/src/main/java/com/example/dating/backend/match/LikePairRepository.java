@@ -0,0 +1,11 @@
+package com.example.dating.backend.match;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LikePairRepository extends JpaRepository<LikePair, LikePair.Key> {
+    @Query("select p.mask from LikePair p where p.userLow = :userLow and p.userHigh = :userHigh")
+    Optional<Short> findMask(@Param("userLow") Long userLow, @Param("userHigh") Long userHigh);
+}
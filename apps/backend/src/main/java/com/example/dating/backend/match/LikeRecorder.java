@@ -0,0 +1,31 @@
+package com.example.dating.backend.match;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class LikeRecorder {
+    private final LikeRepository likeRepository;
+    private final MatchRepository matchRepository;
+
+    public LikeOutcome record(long fromUserId, long toUserId) {
+        if (fromUserId == toUserId) {
+            throw new IllegalArgumentException("Cannot like yourself");
+        }
+        long low = Math.min(fromUserId, toUserId);
+        long high = Math.max(fromUserId, toUserId);
+        short bit = fromUserId == low ? LikePair.LOW_LIKED_HIGH : LikePair.HIGH_LIKED_LOW;
+
+        LikeUpsertResult result = likeRepository.upsertLike(fromUserId, toUserId, low, high, bit);
+        boolean matched = Boolean.TRUE.equals(result.getMatched());
+        Long matchId = result.getMatchId();
+        if (matched && matchId == null) {
+            // The match was committed by a concurrent like after this statement's snapshot was taken.
+            matchId = matchRepository.findByUser1IdAndUser2Id(low, high).map(Match::getId).orElse(null);
+        }
+        return new LikeOutcome(Boolean.TRUE.equals(result.getInserted()), matched, matchId);
+    }
+
+    public record LikeOutcome(boolean inserted, boolean matched, Long matchId) {}
+}
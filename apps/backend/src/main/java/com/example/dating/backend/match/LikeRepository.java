@@ -2,11 +2,62 @@ package com.example.dating.backend.match;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface LikeRepository extends JpaRepository<Like, Long> {
+public interface LikeRepository extends JpaRepository<Like, Long>, LikeRepositoryCustom {
     boolean existsByFromUserIdAndToUserId(Long fromUserId, Long toUserId);
 
-    List<Like> findByFromUserId(Long fromUserId);
-
     List<Like> findByToUserId(Long toUserId);
+
+    long countByToUserId(Long toUserId);
+
+    /**
+     * Records the like, folds it into the pair mask and creates the match (with its two
+     * {@link MatchMember} rows) once both bits are set, all in one statement. The pair upsert
+     * takes a row lock, so two users liking each other at the same time are serialized there and
+     * exactly one of them observes the mutual mask. A new like is announced to {@link LikeIndex}
+     * on commit.
+     */
+    @Transactional
+    @Query(value = """
+            WITH new_like AS (
+                INSERT INTO likes (from_user_id, to_user_id, created_at)
+                VALUES (:fromUserId, :toUserId, now())
+                ON CONFLICT (from_user_id, to_user_id) DO NOTHING
+                RETURNING id
+            ), like_event AS (
+                INSERT INTO swipe_events (from_user_id, to_user_id, direction, created_at)
+                VALUES (:fromUserId, :toUserId, 'LIKE', now())
+                ON CONFLICT (from_user_id, to_user_id, direction) DO NOTHING
+            ), pair AS (
+                INSERT INTO like_pairs (user_low, user_high, mask)
+                VALUES (:userLow, :userHigh, :bit)
+                ON CONFLICT (user_low, user_high) DO UPDATE SET mask = like_pairs.mask | EXCLUDED.mask
+                RETURNING mask
+            ), new_match AS (
+                INSERT INTO matches (user1_id, user2_id, created_at)
+                SELECT :userLow, :userHigh, now() FROM pair WHERE pair.mask = 3
+                ON CONFLICT (user1_id, user2_id) DO NOTHING
+                RETURNING id, user1_id, user2_id, created_at
+            ), members AS (
+                INSERT INTO match_members (owner_id, partner_id, match_id, created_at)
+                SELECT user1_id, user2_id, id, created_at FROM new_match
+                UNION ALL
+                SELECT user2_id, user1_id, id, created_at FROM new_match
+                ON CONFLICT (owner_id, partner_id) DO NOTHING
+            ), notified AS MATERIALIZED (
+                SELECT pg_notify('like_index', '+' || :fromUserId || ':' || :toUserId) FROM new_like
+            )
+            SELECT EXISTS (SELECT 1 FROM notified) AS "inserted",
+                   (SELECT pair.mask = 3 FROM pair) AS "matched",
+                   COALESCE((SELECT id FROM new_match),
+                            (SELECT m.id FROM matches m WHERE m.user1_id = :userLow AND m.user2_id = :userHigh)) AS "matchId"
+            """, nativeQuery = true)
+    LikeUpsertResult upsertLike(@Param("fromUserId") long fromUserId,
+                                @Param("toUserId") long toUserId,
+                                @Param("userLow") long userLow,
+                                @Param("userHigh") long userHigh,
+                                @Param("bit") short bit);
 }
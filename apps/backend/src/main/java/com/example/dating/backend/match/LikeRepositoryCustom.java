@@ -0,0 +1,9 @@
+package com.example.dating.backend.match;
+
+public interface LikeRepositoryCustom {
+    /**
+     * Inserts the given likes, folds them into {@code like_pairs} and creates any match that
+     * became mutual, in one statement. The new likes are announced to {@link LikeIndex} on commit.
+     */
+    void insertBatch(long[] fromUserIds, long[] toUserIds);
+}
@@ -0,0 +1,70 @@
+package com.example.dating.backend.match;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+class LikeRepositoryImpl implements LikeRepositoryCustom {
+    private static final String INSERT_BATCH_SQL = """
+            WITH input AS (
+                SELECT DISTINCT from_user_id, to_user_id
+                FROM unnest(?::bigint[], ?::bigint[]) AS t(from_user_id, to_user_id)
+            ), new_likes AS (
+                INSERT INTO likes (from_user_id, to_user_id, created_at)
+                SELECT from_user_id, to_user_id, now() FROM input
+                ON CONFLICT (from_user_id, to_user_id) DO NOTHING
+                RETURNING from_user_id, to_user_id
+            ), like_events AS (
+                INSERT INTO swipe_events (from_user_id, to_user_id, direction, created_at)
+                SELECT from_user_id, to_user_id, 'LIKE', now() FROM input
+                ON CONFLICT (from_user_id, to_user_id, direction) DO NOTHING
+            ), pairs AS (
+                INSERT INTO like_pairs (user_low, user_high, mask)
+                SELECT LEAST(from_user_id, to_user_id), GREATEST(from_user_id, to_user_id),
+                       BIT_OR(CASE WHEN from_user_id < to_user_id THEN 1 ELSE 2 END)::smallint
+                FROM input
+                GROUP BY 1, 2
+                ON CONFLICT (user_low, user_high) DO UPDATE SET mask = like_pairs.mask | EXCLUDED.mask
+                RETURNING user_low, user_high, mask
+            ), new_matches AS (
+                INSERT INTO matches (user1_id, user2_id, created_at)
+                SELECT user_low, user_high, now() FROM pairs WHERE mask = 3
+                ON CONFLICT (user1_id, user2_id) DO NOTHING
+                RETURNING id, user1_id, user2_id, created_at
+            ), members AS (
+                INSERT INTO match_members (owner_id, partner_id, match_id, created_at)
+                SELECT user1_id, user2_id, id, created_at FROM new_matches
+                UNION ALL
+                SELECT user2_id, user1_id, id, created_at FROM new_matches
+                ON CONFLICT (owner_id, partner_id) DO NOTHING
+            )
+            SELECT pg_notify('like_index', string_agg('+' || from_user_id || ':' || to_user_id, ','))
+            FROM (
+                SELECT from_user_id, to_user_id, (row_number() OVER () - 1) / 150 AS chunk FROM new_likes
+            ) changes
+            GROUP BY chunk
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertBatch(long[] fromUserIds, long[] toUserIds) {
+        jdbcTemplate.execute(INSERT_BATCH_SQL, (PreparedStatement ps) -> {
+            Array from = ps.getConnection().createArrayOf("bigint", box(fromUserIds));
+            Array to = ps.getConnection().createArrayOf("bigint", box(toUserIds));
+            ps.setArray(1, from);
+            ps.setArray(2, to);
+            return ps.execute();
+        });
+    }
+
+    private static Long[] box(long[] values) {
+        Long[] boxed = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.dating.backend.match;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves likes older than the retention window that were never reciprocated into
+ * {@code likes_archive}, clearing their bit in {@code like_pairs} and announcing the removal to
+ * {@link LikeIndex} in the same transaction. Matched likes are kept. The {@code swipe_events} entry stays, so an expired like still keeps the profile out
+ * of the liker's feed.
+ *
+ * <p>Every batch runs in its own transaction holding a cluster-wide advisory lock, so only one
+ * node archives at a time. Victims lock their pair row and are re-checked against it and against
+ * {@code matches}, so a reciprocal like committing concurrently either wins the row first (and the
+ * like is skipped) or waits and then sees the bit already cleared.
+ */
+@Slf4j
+@Component
+public class LikeRetentionJob {
+    static final long ADVISORY_LOCK_KEY = 0x4c494b45L;
+
+    private static final String ARCHIVE_BATCH_SQL = """
+            WITH victims AS (
+                SELECT l.from_user_id, l.id
+                FROM likes l
+                JOIN like_pairs p
+                  ON p.user_low = LEAST(l.from_user_id, l.to_user_id)
+                 AND p.user_high = GREATEST(l.from_user_id, l.to_user_id)
+                WHERE l.created_at < ?
+                  AND p.mask <> 3
+                  AND NOT EXISTS (
+                      SELECT 1 FROM matches m
+                      WHERE m.user1_id = p.user_low AND m.user2_id = p.user_high
+                  )
+                LIMIT ?
+                FOR UPDATE OF l, p SKIP LOCKED
+            ), moved AS (
+                DELETE FROM likes l
+                USING victims v
+                WHERE l.from_user_id = v.from_user_id AND l.id = v.id
+                RETURNING l.id, l.from_user_id, l.to_user_id, l.created_at
+            ), archived AS (
+                INSERT INTO likes_archive (id, from_user_id, to_user_id, created_at, archived_at)
+                SELECT id, from_user_id, to_user_id, created_at, now() FROM moved
+            ), pairs AS (
+                UPDATE like_pairs p
+                SET mask = (p.mask & ~(CASE WHEN m.from_user_id < m.to_user_id THEN 1 ELSE 2 END))::smallint
+                FROM moved m
+                WHERE p.user_low = LEAST(m.from_user_id, m.to_user_id)
+                  AND p.user_high = GREATEST(m.from_user_id, m.to_user_id)
+            )
+            SELECT from_user_id, to_user_id FROM moved
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeIndex likeIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    public LikeRetentionJob(
+            JdbcTemplate jdbcTemplate,
+            LikeIndex likeIndex,
+            PlatformTransactionManager transactionManager,
+            @Value("${likes.retention.enabled:false}") boolean enabled,
+            @Value("${likes.retention.max-age-days:180}") long maxAgeDays,
+            @Value("${likes.retention.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeIndex = likeIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${likes.retention.cron:0 30 3 * * *}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(maxAge));
+        long total = 0;
+        while (true) {
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            } catch (RuntimeException ex) {
+                log.warn("like_retention_batch_failed archived={}", total, ex);
+                return;
+            }
+            if (moved == null) {
+                log.info("like_retention_skipped reason=locked_by_other_node archived={}", total);
+                return;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        log.info("like_retention_done archived={}", total);
+    }
+
+    /**
+     * Archives one batch, or returns {@code null} when another node holds the job lock.
+     */
+    private Integer archiveBatch(Timestamp cutoff) {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        List<long[]> moved = jdbcTemplate.query(ARCHIVE_BATCH_SQL,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                cutoff, batchSize);
+        likeIndex.publishRemoved(moved);
+        return moved.size();
+    }
+}
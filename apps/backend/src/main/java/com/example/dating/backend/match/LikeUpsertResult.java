@@ -0,0 +1,7 @@
+package com.example.dating.backend.match;
+
+public interface LikeUpsertResult {
+    Boolean getInserted();
+    Boolean getMatched();
+    Long getMatchId();
+}
@@ -0,0 +1,57 @@
+package com.example.dating.backend.match;
+
+import com.example.dating.backend.support.LongOpenHashing;
+
+/**
+ * Open-addressing set of primitive longs. Not thread-safe; callers synchronize on the instance.
+ */
+final class LongHashSet {
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        slots = LongOpenHashing.newKeys(capacity);
+    }
+
+    boolean add(long value) {
+        if ((size + 1) * 4 > slots.length * 3) {
+            rehash(slots.length << 1);
+        }
+        int slot = LongOpenHashing.find(slots, value);
+        if (slot >= 0) {
+            return false;
+        }
+        slots[-slot - 1] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        return LongOpenHashing.find(slots, value) >= 0;
+    }
+
+    boolean remove(long value) {
+        int slot = LongOpenHashing.find(slots, value);
+        if (slot < 0) {
+            return false;
+        }
+        LongOpenHashing.delete(slots, null, slot);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = LongOpenHashing.newKeys(capacity);
+        for (long value : old) {
+            if (value != LongOpenHashing.EMPTY) {
+                slots[-LongOpenHashing.find(slots, value) - 1] = value;
+            }
+        }
+    }
+}
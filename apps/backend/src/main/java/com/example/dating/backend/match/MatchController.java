@@ -25,5 +25,13 @@ public class MatchController {
         return matchService.getMatches(telegramId);
     }
 
+    @GetMapping("/matches/inbox")
+    public MatchInboxPage inbox(Authentication auth,
+                                @RequestParam(value = "cursor", required = false) String cursor,
+                                @RequestParam(value = "limit", required = false) Integer limit) {
+        Long telegramId = Long.valueOf(auth.getName());
+        return matchService.getInbox(telegramId, MatchInboxCursor.decode(cursor), limit);
+    }
+
     public record MatchResponse(boolean matched) {}
 }
@@ -0,0 +1,34 @@
+package com.example.dating.backend.match;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Seek key of the last match served in an inbox page: its creation time and id.
+ */
+public record MatchInboxCursor(Instant matchedAt, long matchId) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = ChronoUnit.MICROS.between(Instant.EPOCH, matchedAt) + String.valueOf(SEPARATOR) + matchId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MatchInboxCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new MatchInboxCursor(
+                    Instant.EPOCH.plus(Long.parseLong(raw.substring(0, separator)), ChronoUnit.MICROS),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed inbox cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.dating.backend.match;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record MatchInboxItem(
+    Long matchId,
+    Instant matchedAt,
+    Partner partner,
+    LastMessage lastMessage,
+    int unreadCount
+) {
+    public record Partner(Long userId, Long telegramId, String username, String city, LocalDate birthday, Long photoId) {}
+
+    public record LastMessage(Long id, Long fromUserId, String body, Instant createdAt) {}
+}
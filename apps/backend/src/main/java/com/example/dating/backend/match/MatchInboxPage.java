@@ -0,0 +1,8 @@
+package com.example.dating.backend.match;
+
+import java.util.List;
+
+/**
+ * Newest-first page of the caller's matches. {@code unreadCount} saturates at the configured cap.
+ */
+public record MatchInboxPage(List<MatchInboxItem> items, String nextCursor) {}
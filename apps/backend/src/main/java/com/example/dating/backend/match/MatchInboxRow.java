@@ -0,0 +1,20 @@
+package com.example.dating.backend.match;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public interface MatchInboxRow {
+    Long getMatchId();
+    Instant getMatchedAt();
+    Long getPartnerUserId();
+    Long getPartnerTelegramId();
+    String getPartnerUsername();
+    String getPartnerCity();
+    LocalDate getPartnerBirthday();
+    Long getPartnerPhotoId();
+    Long getLastMessageId();
+    Long getLastMessageFromUserId();
+    String getLastMessageBody();
+    Instant getLastMessageAt();
+    Integer getUnreadCount();
+}
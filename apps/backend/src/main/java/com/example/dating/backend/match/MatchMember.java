@@ -0,0 +1,44 @@
+package com.example.dating.backend.match;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Symmetric projection of {@link Match}: two rows per match, one owned by each member, so
+ * "matches of a user" is a single range scan on the owner instead of an OR across
+ * {@code user1_id} and {@code user2_id}. Written in the same statement that creates the match.
+ */
+@Entity
+@Table(name = "match_members",
+        indexes = @Index(name = "idx_match_members_owner_created", columnList = "owner_id, created_at, match_id"))
+@IdClass(MatchMember.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchMember {
+    @Id
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Id
+    @Column(name = "partner_id", nullable = false)
+    private Long partnerId;
+
+    @Column(name = "match_id", nullable = false)
+    private Long matchId;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ownerId;
+        private Long partnerId;
+    }
+}
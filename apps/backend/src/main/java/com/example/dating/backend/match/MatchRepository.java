@@ -1,9 +1,76 @@
 package com.example.dating.backend.match;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface MatchRepository extends JpaRepository<Match, Long> {
     boolean existsByUser1IdAndUser2Id(Long user1Id, Long user2Id);
-    List<Match> findByUser1IdOrUser2IdOrderByCreatedAtDesc(Long user1Id, Long user2Id);
+    Optional<Match> findByUser1IdAndUser2Id(Long user1Id, Long user2Id);
+
+    @Query("""
+            SELECT m FROM MatchMember mm JOIN Match m ON m.id = mm.matchId
+            WHERE mm.ownerId = :userId
+            ORDER BY mm.createdAt DESC, mm.matchId DESC
+            """)
+    List<Match> findByMember(@Param("userId") Long userId);
+
+    /**
+     * One inbox page with partner summary, last message and a capped unread count. The page itself
+     * is a single seek on the owner's {@link MatchMember} rows.
+     */
+    @Query(value = """
+            WITH mine AS (
+                SELECT mm.match_id AS id, mm.created_at, mm.partner_id
+                FROM match_members mm
+                WHERE mm.owner_id = :userId AND (mm.created_at, mm.match_id) < (:beforeCreatedAt, :beforeId)
+                ORDER BY mm.created_at DESC, mm.match_id DESC
+                LIMIT :limit
+            )
+            SELECT mine.id AS "matchId",
+                   mine.created_at AS "matchedAt",
+                   u.id AS "partnerUserId",
+                   u.telegram_id AS "partnerTelegramId",
+                   u.username AS "partnerUsername",
+                   p.city AS "partnerCity",
+                   p.birthday AS "partnerBirthday",
+                   p.photo_id AS "partnerPhotoId",
+                   lm.id AS "lastMessageId",
+                   lm.from_user_id AS "lastMessageFromUserId",
+                   lm.body AS "lastMessageBody",
+                   lm.created_at AS "lastMessageAt",
+                   unread.cnt AS "unreadCount"
+            FROM mine
+            JOIN users u ON u.id = mine.partner_id
+            LEFT JOIN profiles p ON p.user_id = u.id
+            LEFT JOIN LATERAL (
+                SELECT c.id, c.from_user_id, c.body, c.created_at
+                FROM chat_messages c
+                WHERE c.match_id = mine.id
+                ORDER BY c.created_at DESC, c.id DESC
+                LIMIT 1
+            ) lm ON true
+            LEFT JOIN chat_read_cursors rc ON rc.match_id = mine.id AND rc.user_id = :userId
+            LEFT JOIN LATERAL (
+                SELECT count(*)::int AS cnt
+                FROM (
+                    SELECT 1 FROM chat_messages c
+                    WHERE c.match_id = mine.id
+                      AND c.from_user_id <> :userId
+                      AND (c.created_at, c.id) > (COALESCE(rc.last_read_created_at, CAST('-infinity' AS timestamptz)),
+                                                  COALESCE(rc.last_read_message_id, 0))
+                    LIMIT :unreadCap
+                ) capped
+            ) unread ON true
+            ORDER BY mine.created_at DESC, mine.id DESC
+            """, nativeQuery = true)
+    List<MatchInboxRow> findInboxPage(@Param("userId") Long userId,
+                                      @Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                      @Param("beforeId") long beforeId,
+                                      @Param("limit") int limit,
+                                      @Param("unreadCap") int unreadCap);
 }
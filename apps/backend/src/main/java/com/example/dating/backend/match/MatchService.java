@@ -7,12 +7,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class MatchService {
-    private final LikeRepository likeRepository;
+    static final int DEFAULT_INBOX_PAGE = 20;
+    static final int MAX_INBOX_PAGE = 50;
+    static final int UNREAD_CAP = 99;
+    private static final OffsetDateTime END_OF_TIME = OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final LikeRecorder likeRecorder;
     private final MatchRepository matchRepository;
     private final UserRepository userRepository;
 
@@ -20,33 +26,49 @@ public class MatchService {
     public boolean like(Long fromTelegramId, Long targetUserId) {
         User from = userRepository.findByTelegramId(fromTelegramId)
                 .orElseThrow();
-        Long fromId = from.getId();
-        if (likeRepository.existsByFromUserIdAndToUserId(fromId, targetUserId)) {
-            return false;
-        }
-        likeRepository.save(Like.builder()
-                .fromUserId(fromId)
-                .toUserId(targetUserId)
-                .createdAt(OffsetDateTime.now())
-                .build());
-        if (likeRepository.existsByFromUserIdAndToUserId(targetUserId, fromId)) {
-            long u1 = Math.min(fromId, targetUserId);
-            long u2 = Math.max(fromId, targetUserId);
-            if (!matchRepository.existsByUser1IdAndUser2Id(u1, u2)) {
-                matchRepository.save(Match.builder()
-                        .user1Id(u1)
-                        .user2Id(u2)
-                        .createdAt(OffsetDateTime.now())
-                        .build());
-            }
-            return true;
+        LikeRecorder.LikeOutcome outcome = likeRecorder.record(from.getId(), targetUserId);
+        return outcome.inserted() && outcome.matched();
+    }
+
+    public MatchInboxPage getInbox(Long telegramId, MatchInboxCursor cursor, Integer limit) {
+        User user = userRepository.findByTelegramId(telegramId).orElseThrow();
+        int pageSize = limit == null ? DEFAULT_INBOX_PAGE : Math.min(Math.max(limit, 1), MAX_INBOX_PAGE);
+        OffsetDateTime before = cursor != null ? cursor.matchedAt().atOffset(ZoneOffset.UTC) : END_OF_TIME;
+        long beforeId = cursor != null ? cursor.matchId() : Long.MAX_VALUE;
+
+        List<MatchInboxItem> items = matchRepository
+                .findInboxPage(user.getId(), before, beforeId, pageSize, UNREAD_CAP)
+                .stream()
+                .map(MatchService::toInboxItem)
+                .toList();
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            MatchInboxItem last = items.get(items.size() - 1);
+            nextCursor = new MatchInboxCursor(last.matchedAt(), last.matchId()).encode();
         }
-        return false;
+        return new MatchInboxPage(items, nextCursor);
     }
 
     public List<Match> getMatches(Long telegramId) {
         User user = userRepository.findByTelegramId(telegramId).orElseThrow();
-        Long id = user.getId();
-        return matchRepository.findByUser1IdOrUser2IdOrderByCreatedAtDesc(id, id);
+        return matchRepository.findByMember(user.getId());
+    }
+
+    private static MatchInboxItem toInboxItem(MatchInboxRow row) {
+        MatchInboxItem.LastMessage lastMessage = row.getLastMessageId() == null ? null
+                : new MatchInboxItem.LastMessage(
+                        row.getLastMessageId(), row.getLastMessageFromUserId(), row.getLastMessageBody(), row.getLastMessageAt());
+        return new MatchInboxItem(
+                row.getMatchId(),
+                row.getMatchedAt(),
+                new MatchInboxItem.Partner(
+                        row.getPartnerUserId(),
+                        row.getPartnerTelegramId(),
+                        row.getPartnerUsername(),
+                        row.getPartnerCity(),
+                        row.getPartnerBirthday(),
+                        row.getPartnerPhotoId()),
+                lastMessage,
+                row.getUnreadCount() == null ? 0 : row.getUnreadCount());
     }
 }
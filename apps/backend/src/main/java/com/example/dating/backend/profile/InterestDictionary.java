@@ -0,0 +1,170 @@
+package com.example.dating.backend.profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Append-only dictionary mapping interest labels to small integer ids, mirrored in memory with
+ * interned labels. Profiles store interests as {@code profiles.interest_ids}. New labels are
+ * inserted in the caller's transaction, which then holds no second pooled connection, and enter
+ * the in-memory mirror only once that transaction commits, so a rolled-back id is never handed
+ * out again. Ids created by other nodes are loaded on first use.
+ */
+@Slf4j
+@Component
+public class InterestDictionary {
+    /**
+     * Creates the missing labels and returns the ids of all of them. The plain select runs on the
+     * statement's snapshot, so it returns the labels that already existed and the insert returns
+     * the new ones. A label committed concurrently is in neither and is picked up by a retry.
+     */
+    private static final String RESOLVE_SQL = """
+            WITH input AS (
+                SELECT DISTINCT unnest(?::varchar[]) AS label
+            ), created AS (
+                INSERT INTO interests (label)
+                SELECT label FROM input
+                ON CONFLICT (label) DO NOTHING
+                RETURNING id, label
+            )
+            SELECT id, label, true FROM created
+            UNION ALL
+            SELECT i.id, i.label, false FROM interests i JOIN input ON input.label = i.label
+            """;
+    private static final int RESOLVE_ATTEMPTS = 3;
+    private static final String SELECT_BY_ID_SQL = "SELECT id, label FROM interests WHERE id = ANY(?::int[])";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> idsByLabel = new ConcurrentHashMap<>();
+    private volatile String[] labelsById = new String[256];
+
+    public InterestDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            jdbcTemplate.query("SELECT id, label FROM interests", rs -> {
+                register(rs.getInt(1), rs.getString(2));
+            });
+        } catch (RuntimeException ex) {
+            log.warn("interest_dictionary_warmup_failed", ex);
+            return;
+        }
+        log.info("interest_dictionary_ready labels={}", idsByLabel.size());
+    }
+
+    /**
+     * Ids for the given labels in the same order, creating dictionary entries for unknown labels.
+     */
+    public int[] idsOf(Collection<String> labels) {
+        Map<String, Integer> resolved = new HashMap<>();
+        List<String> missing = labels.stream().filter(label -> !idsByLabel.containsKey(label)).distinct().toList();
+        for (int attempt = 0; attempt < RESOLVE_ATTEMPTS && !missing.isEmpty(); attempt++) {
+            String[] batch = missing.toArray(String[]::new);
+            jdbcTemplate.query(RESOLVE_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", batch)),
+                    rs -> {
+                        int id = rs.getInt(1);
+                        String label = rs.getString(2);
+                        resolved.put(label, id);
+                        if (rs.getBoolean(3)) {
+                            registerAfterCommit(id, label);
+                        } else {
+                            register(id, label);
+                        }
+                    });
+            missing = missing.stream().filter(label -> !resolved.containsKey(label)).toList();
+        }
+        int[] ids = new int[labels.size()];
+        int i = 0;
+        for (String label : labels) {
+            Integer id = idsByLabel.getOrDefault(label, resolved.get(label));
+            if (id == null) {
+                throw new IllegalStateException("Interest was not registered: " + label);
+            }
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Labels for the given ids in the same order; ids unknown to the database are skipped.
+     */
+    public List<String> labelsOf(int[] ids) {
+        if (ids == null || ids.length == 0) {
+            return List.of();
+        }
+        Integer[] missing = Arrays.stream(ids).filter(id -> label(id) == null).boxed().toArray(Integer[]::new);
+        Map<Integer, String> loaded = new HashMap<>();
+        if (missing.length > 0) {
+            // Inside a writing transaction the rows may be its own uncommitted labels.
+            boolean uncommittedVisible = TransactionSynchronizationManager.isSynchronizationActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            jdbcTemplate.query(SELECT_BY_ID_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", missing)),
+                    rs -> {
+                        int id = rs.getInt(1);
+                        String label = rs.getString(2);
+                        loaded.put(id, label);
+                        if (uncommittedVisible) {
+                            registerAfterCommit(id, label);
+                        } else {
+                            register(id, label);
+                        }
+                    });
+        }
+        List<String> labels = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            String label = label(id);
+            if (label == null) {
+                label = loaded.get(id);
+            }
+            if (label != null) {
+                labels.add(label);
+            }
+        }
+        return labels;
+    }
+
+    private String label(int id) {
+        String[] labels = labelsById;
+        return id >= 0 && id < labels.length ? labels[id] : null;
+    }
+
+    private void registerAfterCommit(int id, String label) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            register(id, label);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                register(id, label);
+            }
+        });
+    }
+
+    private synchronized void register(int id, String label) {
+        String interned = label.intern();
+        String[] labels = labelsById;
+        if (id >= labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(labels.length * 2, id + 1));
+        }
+        labels[id] = interned;
+        labelsById = labels;
+        idsByLabel.put(interned, id);
+    }
+}
@@ -3,6 +3,8 @@ package com.example.dating.backend.profile;
 import com.example.dating.backend.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -34,5 +36,10 @@ public class Profile {
     private OffsetDateTime vipUntil;
     private String city;
 
+    @Builder.Default
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "interest_ids", nullable = false, columnDefinition = "integer[]")
+    private int[] interestIds = new int[0];
+
     public enum Gender { MALE, FEMALE, OTHER }
 }
@@ -0,0 +1,11 @@
+package com.example.dating.backend.profile;
+
+import java.util.Collection;
+
+public interface ProfileInterestRepositoryCustom {
+  /**
+   * Removes {@code removed} and adds {@code added} for one user with one statement each, whatever
+   * the number of values.
+   */
+  void applyDiff(Long userId, Collection<String> removed, Collection<String> added);
+}
@@ -0,0 +1,40 @@
+package com.example.dating.backend.profile;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+class ProfileInterestRepositoryImpl implements ProfileInterestRepositoryCustom {
+  private static final String DELETE_SQL = """
+      DELETE FROM profile_interests
+      WHERE user_id = ? AND value = ANY(?::varchar[])
+      """;
+
+  private static final String INSERT_SQL = """
+      INSERT INTO profile_interests (user_id, value)
+      SELECT ?, value FROM unnest(?::varchar[]) WITH ORDINALITY AS t(value, ord)
+      ORDER BY ord
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void applyDiff(Long userId, Collection<String> removed, Collection<String> added) {
+    if (!removed.isEmpty()) {
+      execute(DELETE_SQL, userId, removed);
+    }
+    if (!added.isEmpty()) {
+      execute(INSERT_SQL, userId, added);
+    }
+  }
+
+  private void execute(String sql, Long userId, Collection<String> values) {
+    jdbcTemplate.execute(sql, (PreparedStatement ps) -> {
+      ps.setLong(1, userId);
+      ps.setArray(2, ps.getConnection().createArrayOf("varchar", values.toArray(String[]::new)));
+      return ps.executeUpdate();
+    });
+  }
+}
@@ -0,0 +1,3 @@
+package com.example.dating.backend.profile;
+
+public record ProfileLocationChangedEvent(Long userId) {}
@@ -1,14 +1,34 @@
 package com.example.dating.backend.profile;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProfileRepository extends JpaRepository<Profile, Long> {
     Optional<Profile> findByUserTelegramId(Long telegramId);
 
     @EntityGraph(attributePaths = "user")
-    Page<Profile> findByUserIdNot(Long userId, Pageable pageable);
+    List<Profile> findByUserIdIn(Collection<Long> userIds);
+
+    @Query(value = """
+            SELECT p.user_id
+            FROM profiles p
+            WHERE p.user_id <> :viewerId
+              AND NOT EXISTS (
+                  SELECT 1 FROM swipe_events e
+                  WHERE e.from_user_id = :viewerId AND e.to_user_id = p.user_id
+              )
+              AND p.user_id > :afterUserId
+            ORDER BY p.user_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findCandidateIds(
+            @Param("viewerId") Long viewerId,
+            @Param("afterUserId") long afterUserId,
+            @Param("limit") int limit
+    );
 }
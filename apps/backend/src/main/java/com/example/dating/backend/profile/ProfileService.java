@@ -6,12 +6,20 @@ import com.example.dating.backend.user.User;
 import com.example.dating.backend.user.UserService;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,8 +31,10 @@ public class ProfileService {
     private final UserService userService;
     private final ProfileRepository profileRepository;
     private final ProfileInterestRepository interestRepository;
+    private final InterestDictionary interestDictionary;
     private final GeoLocationRepository geoLocationRepository;
     private final GeometryFactory geometryFactory;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public ProfileResponse fetchProfile(Long telegramId) {
@@ -33,9 +43,7 @@ public class ProfileService {
                 .orElseGet(() -> createDefaultProfile(user));
         GeoLocation geo = geoLocationRepository.findById(user.getId()).orElse(null);
 
-        List<String> interests = interestRepository.findByUserId(user.getId()).stream()
-                .map(ProfileInterestEntity::getValue)
-                .toList();
+        List<String> interests = interestDictionary.labelsOf(profile.getInterestIds());
 
         return mapToResponse(user, profile, geo, interests);
     }
@@ -47,10 +55,11 @@ public class ProfileService {
                 .orElseGet(() -> createDefaultProfile(user));
 
         applyProfilePayload(profile, request);
+        List<String> interests = upsertInterests(user.getId(), request.interests());
+        profile.setInterestIds(interestDictionary.idsOf(interests));
         profileRepository.save(profile);
 
         GeoLocation geo = upsertLocation(user, request);
-        List<String> interests = upsertInterests(user.getId(), request.interests());
 
         log.info("profile_updated telegramId={} interests={} city={}", telegramId, interests, request.city());
 
@@ -98,30 +107,43 @@ public class ProfileService {
                         .userId(user.getId())
                         .build());
 
-        geo.setPoint(geometryFactory.createPoint(new Coordinate(request.longitude(), request.latitude())));
+        Point point = geometryFactory.createPoint(new Coordinate(request.longitude(), request.latitude()));
+        if (geo.getPoint() == null || !geo.getPoint().equalsExact(point)) {
+            eventPublisher.publishEvent(new ProfileLocationChangedEvent(user.getId()));
+        }
+        geo.setPoint(point);
         geo.setUpdatedAt(OffsetDateTime.now(ZoneOffset.UTC).toInstant());
 
         return geoLocationRepository.save(geo);
     }
 
     private List<String> upsertInterests(Long userId, List<String> interests) {
-        interestRepository.deleteByUserId(userId);
-
-        if (interests == null || interests.isEmpty()) {
-            return List.of();
+        Set<String> requested = new LinkedHashSet<>();
+        if (interests != null) {
+            interests.stream()
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .forEach(requested::add);
         }
 
-        return interests.stream()
-                .map(String::trim)
-                .filter(value -> !value.isEmpty())
-                .map(value -> {
-                    ProfileInterestEntity entity = new ProfileInterestEntity();
-                    entity.setUserId(userId);
-                    entity.setValue(value);
-                    return interestRepository.save(entity);
-                })
-                .map(ProfileInterestEntity::getValue)
+        Map<String, Long> stored = interestRepository.findByUserId(userId).stream()
+                .collect(Collectors.groupingBy(ProfileInterestEntity::getValue, Collectors.counting()));
+        // Duplicated rows are deleted by value and re-added once.
+        Set<String> kept = new HashSet<>();
+        List<String> removed = new ArrayList<>();
+        stored.forEach((value, count) -> {
+            if (requested.contains(value) && count == 1) {
+                kept.add(value);
+            } else {
+                removed.add(value);
+            }
+        });
+        List<String> added = requested.stream()
+                .filter(value -> !kept.contains(value))
                 .toList();
+
+        interestRepository.applyDiff(userId, removed, added);
+        return List.copyOf(requested);
     }
 
     private ProfileResponse mapToResponse(User user, Profile profile, GeoLocation geo, List<String> interests) {
@@ -0,0 +1,78 @@
+package com.example.dating.backend.support;
+
+import java.util.Arrays;
+
+/**
+ * Linear-probing primitives over a power-of-two {@code long[]} key table, shared by the primitive
+ * collections so they box nothing and agree on hashing and deletion. A table may carry a parallel
+ * value array that moves with its keys. Growth policy and rehashing stay with the caller.
+ */
+public final class LongOpenHashing {
+
+    /** Marks a free slot; it can never be stored as a key. */
+    public static final long EMPTY = Long.MIN_VALUE;
+
+    private LongOpenHashing() {
+    }
+
+    public static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    /** Smallest power of two, at least {@code minimum}, that keeps {@code expected} keys at most half full. */
+    public static int capacityFor(int expected, int minimum) {
+        int capacity = minimum;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Slot holding {@code key}, or {@code -(slot + 1)} for the free slot it would be inserted at.
+     * The table must have at least one free slot.
+     */
+    public static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    /**
+     * Frees {@code slot} and backward-shifts the rest of its probe run, so lookups never stop at
+     * the hole and no tombstones are needed. {@code values} may be {@code null}.
+     */
+    public static void delete(long[] keys, Object[] values, int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                if (values != null) {
+                    values[hole] = values[next];
+                }
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        if (values != null) {
+            values[hole] = null;
+        }
+    }
+
+    public static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.dating.backend.swipe;
+
+import java.time.Instant;
+
+record FeedCandidate(Long userId, Double distanceMeters, Instant locationUpdatedAt) {
+
+    SwipeFeedCursor toCursor() {
+        return new SwipeFeedCursor(distanceMeters, userId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.dating.backend.swipe;
+
+/**
+ * Scores one page of feed candidates; higher scores are shown first. Implementations read the
+ * primitive columns of the batch and must not allocate, since they run on every feed request.
+ */
+public interface FeedRanker {
+
+    void score(RankingBatch batch, double[] scores);
+}
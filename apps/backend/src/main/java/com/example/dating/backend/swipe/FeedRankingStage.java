@@ -0,0 +1,68 @@
+package com.example.dating.backend.swipe;
+
+import com.example.dating.backend.profile.Profile;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reorders one feed page with the configured {@link FeedRanker}. Paging stays in distance order,
+ * so cursors are unaffected; only the cards within a page are shuffled. Scratch buffers are kept
+ * per thread, so ranking allocates nothing but the returned order.
+ */
+@Component
+class FeedRankingStage {
+
+    private final FeedRanker ranker;
+    private final boolean enabled;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    FeedRankingStage(FeedRanker ranker, @Value("${swipe.ranking.enabled:true}") boolean enabled) {
+        this.ranker = ranker;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indexes into {@code candidates} (aligned with {@code profiles}) in display order.
+     */
+    int[] order(Profile viewer, List<FeedCandidate> candidates, List<Profile> profiles, long nowMillis) {
+        int size = candidates.size();
+        int[] order = new int[size];
+        if (!enabled || size < 2) {
+            Arrays.setAll(order, i -> i);
+            return order;
+        }
+        Scratch buffers = scratch.get();
+        RankingBatch batch = buffers.batch;
+        batch.reset(size, nowMillis);
+        batch.setViewerInterests(viewer != null ? viewer.getInterestIds() : null);
+        for (int i = 0; i < size; i++) {
+            FeedCandidate candidate = candidates.get(i);
+            Profile profile = profiles.get(i);
+            batch.setCandidate(i,
+                    candidate.distanceMeters(),
+                    candidate.locationUpdatedAt() != null
+                            ? candidate.locationUpdatedAt().toEpochMilli()
+                            : RankingBatch.NO_TIMESTAMP,
+                    profile.isVip(),
+                    profile.getInterestIds());
+        }
+        double[] scores = buffers.scores(size);
+        ranker.score(batch, scores);
+        batch.order(scores, order);
+        return order;
+    }
+
+    private static final class Scratch {
+        private final RankingBatch batch = new RankingBatch();
+        private double[] scores = new double[0];
+
+        double[] scores(int size) {
+            if (scores.length < size) {
+                scores = new double[Math.max(size, scores.length * 2)];
+            }
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.example.dating.backend.swipe;
+
+public record LikesYouCountResponse(long count) {}
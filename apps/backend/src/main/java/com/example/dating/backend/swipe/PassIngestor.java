@@ -0,0 +1,129 @@
+package com.example.dating.backend.swipe;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entry point for swipe passes, the counterpart of
+ * {@link com.example.dating.backend.match.LikeIngestor} and driven by the same
+ * {@code swipe.ingest.*} settings. In {@code direct} mode every pass is its own statement; in
+ * {@code batched} mode passes wait in a bounded queue and are written in one multi-row statement
+ * every few milliseconds. A full queue falls back to the direct write.
+ *
+ * <p>A queued pass is not in {@code swipe_events} yet, so the viewer's deck, which the caller
+ * updates right away, is what keeps the card from coming back in the meantime.
+ */
+@Slf4j
+@Component
+public class PassIngestor {
+    private final SwipeEventRepository swipeEventRepository;
+    private final boolean batched;
+    private final int batchSize;
+    private final BlockingQueue<PendingPass> queue;
+    private final Counter deadLetters;
+    private List<PendingPass> unflushed = new ArrayList<>();
+
+    public PassIngestor(
+            SwipeEventRepository swipeEventRepository,
+            MeterRegistry meterRegistry,
+            @Value("${swipe.ingest.mode:direct}") String mode,
+            @Value("${swipe.ingest.queue-capacity:50000}") int queueCapacity,
+            @Value("${swipe.ingest.batch-size:1000}") int batchSize) {
+        this.swipeEventRepository = swipeEventRepository;
+        this.batched = "batched".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.deadLetters = meterRegistry.counter("passes.ingest.dead_letters");
+    }
+
+    public void submit(long fromUserId, long toUserId) {
+        if (!batched || !queue.offer(new PendingPass(fromUserId, toUserId))) {
+            swipeEventRepository.recordPass(fromUserId, toUserId);
+        }
+    }
+
+    /**
+     * Drops a pass that has not been written yet. Runs under the flush lock, so once it returns
+     * the pass is either gone from the queue or already committed, and the caller's delete of the
+     * stored row covers the rest.
+     */
+    public synchronized void cancel(long fromUserId, long toUserId) {
+        if (!batched) {
+            return;
+        }
+        PendingPass pass = new PendingPass(fromUserId, toUserId);
+        queue.removeIf(pass::equals);
+        unflushed.removeIf(pass::equals);
+    }
+
+    public int pending() {
+        return queue.size() + unflushed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${swipe.ingest.flush-interval-ms:5}")
+    public synchronized void flush() {
+        if (!batched) {
+            return;
+        }
+        if (unflushed.isEmpty()) {
+            queue.drainTo(unflushed, batchSize);
+        }
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        try {
+            insert(unflushed);
+        } catch (DataIntegrityViolationException ex) {
+            // Only a pass whose user was deleted meanwhile is rejected; find it one row at a time.
+            unflushed.forEach(this::insertOrDeadLetter);
+        } catch (RuntimeException ex) {
+            log.warn("pass_ingest_flush_failed size={}", unflushed.size(), ex);
+            return;
+        }
+        unflushed.clear();
+    }
+
+    @PreDestroy
+    public void drain() {
+        while (batched && pending() > 0) {
+            int before = pending();
+            flush();
+            if (pending() >= before) {
+                log.error("pass_ingest_drain_stuck pending={}", before);
+                return;
+            }
+        }
+    }
+
+    private void insertOrDeadLetter(PendingPass pass) {
+        try {
+            insert(List.of(pass));
+        } catch (DataIntegrityViolationException ex) {
+            deadLetters.increment();
+            log.error("pass_ingest_dead_letter from={} to={}", pass.fromUserId(), pass.toUserId(), ex);
+        }
+    }
+
+    private void insert(List<PendingPass> batch) {
+        long[] from = new long[batch.size()];
+        long[] to = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            from[i] = batch.get(i).fromUserId();
+            to[i] = batch.get(i).toUserId();
+        }
+        swipeEventRepository.insertPasses(from, to);
+    }
+
+    private record PendingPass(long fromUserId, long toUserId) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.dating.backend.swipe;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented view of the candidates being ranked. Interests are kept as sorted, distinct
+ * dictionary ids packed into one array, so overlap with the viewer is a merge of two short runs
+ * and costs O(k) in the number of interests, however large the dictionary grows. Buffers only
+ * grow and are reused between requests on the same thread.
+ */
+public final class RankingBatch {
+
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private int size;
+    private long nowMillis;
+    private double[] distances = new double[0];
+    private long[] updatedAtMillis = new long[0];
+    private boolean[] vip = new boolean[0];
+    private int[] interestStarts = new int[1];
+    private int[] interests = new int[0];
+    private int[] viewerInterests = new int[0];
+    private int viewerInterestCount;
+    private long[] sortKeys = new long[0];
+
+    /** Candidates must then be set in index order, starting at 0. */
+    void reset(int size, long nowMillis) {
+        this.size = size;
+        this.nowMillis = nowMillis;
+        if (distances.length < size) {
+            int capacity = Math.max(size, distances.length * 2);
+            distances = new double[capacity];
+            updatedAtMillis = new long[capacity];
+            vip = new boolean[capacity];
+            interestStarts = new int[capacity + 1];
+            sortKeys = new long[capacity];
+        }
+        interestStarts[0] = 0;
+        viewerInterestCount = 0;
+    }
+
+    void setViewerInterests(int[] ids) {
+        int count = ids != null ? ids.length : 0;
+        if (viewerInterests.length < count) {
+            viewerInterests = new int[count];
+        }
+        viewerInterestCount = copySorted(ids, viewerInterests, 0);
+    }
+
+    void setCandidate(int index, Double distanceMeters, long updatedAt, boolean isVip, int[] ids) {
+        distances[index] = distanceMeters != null ? distanceMeters : Double.NaN;
+        updatedAtMillis[index] = updatedAt;
+        vip[index] = isVip;
+        int start = interestStarts[index];
+        int count = ids != null ? ids.length : 0;
+        if (interests.length < start + count) {
+            interests = Arrays.copyOf(interests, Math.max(start + count, interests.length * 2));
+        }
+        interestStarts[index + 1] = start + copySorted(ids, interests, start);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long nowMillis() {
+        return nowMillis;
+    }
+
+    /** Distance in meters, or {@code NaN} when the viewer has no location. */
+    public double distance(int index) {
+        return distances[index];
+    }
+
+    /** Location update time, or {@link #NO_TIMESTAMP}. */
+    public long updatedAtMillis(int index) {
+        return updatedAtMillis[index];
+    }
+
+    public boolean vip(int index) {
+        return vip[index];
+    }
+
+    /** Jaccard similarity of the candidate's and the viewer's interests, 0 when both are empty. */
+    public double interestOverlap(int index) {
+        int i = interestStarts[index];
+        int end = interestStarts[index + 1];
+        int v = 0;
+        int shared = 0;
+        while (i < end && v < viewerInterestCount) {
+            int candidate = interests[i];
+            int viewer = viewerInterests[v];
+            if (candidate == viewer) {
+                shared++;
+            }
+            if (candidate <= viewer) {
+                i++;
+            }
+            if (viewer <= candidate) {
+                v++;
+            }
+        }
+        int union = end - interestStarts[index] + viewerInterestCount - shared;
+        return union == 0 ? 0d : (double) shared / union;
+    }
+
+    /**
+     * Fills {@code order} with candidate indexes by descending score; ties keep the incoming
+     * order. Scores must not be NaN.
+     */
+    void order(double[] scores, int[] order) {
+        for (int i = 0; i < size; i++) {
+            // Float bits, flipped for negatives, sort like the floats; the low half breaks ties by index.
+            int bits = Float.floatToIntBits((float) scores[i]);
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            sortKeys[i] = ((long) bits << 32) | (0xFFFFFFFFL - i);
+        }
+        Arrays.sort(sortKeys, 0, size);
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) (0xFFFFFFFFL - (sortKeys[size - 1 - i] & 0xFFFFFFFFL));
+        }
+    }
+
+    /** Copies {@code ids} to {@code target} at {@code offset}, sorted and deduplicated; returns the count. */
+    private static int copySorted(int[] ids, int[] target, int offset) {
+        if (ids == null || ids.length == 0) {
+            return 0;
+        }
+        System.arraycopy(ids, 0, target, offset, ids.length);
+        Arrays.sort(target, offset, offset + ids.length);
+        int count = 1;
+        for (int i = 1; i < ids.length; i++) {
+            if (target[offset + i] != target[offset + count - 1]) {
+                target[offset + count++] = target[offset + i];
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.dating.backend.swipe;
+
+import com.example.dating.backend.geo.GeoLocation;
+import com.example.dating.backend.geo.GeoLocationRepository;
+import com.example.dating.backend.geo.NearbyCandidate;
+import com.example.dating.backend.profile.ProfileRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SwipeCandidateFinder {
+
+    private final GeoLocationRepository geoRepository;
+    private final ProfileRepository profileRepository;
+
+    /**
+     * Keyset pagination. Without a location the feed seeks past the cursor on the profiles
+     * primary key. With a location it walks the KNN order from the viewer and returns the rows
+     * after the (distance, user_id) cursor. Postgres cannot start a KNN scan at a distance, so a
+     * page reads every candidate nearer than its cursor: page k costs O(k * page size) index
+     * entries, and a page that never fills, the end of the feed, reads every remaining row. Decks
+     * take the first pages and their background refills; only requests carrying a cursor pay
+     * this on the request path. A cursor issued for the other mode (the viewer set or lost a
+     * location between pages) restarts the feed.
+     */
+    List<FeedCandidate> find(Long viewerId, GeoLocation viewerGeo, SwipeFeedCursor cursor, int limit) {
+        if (viewerGeo == null || viewerGeo.getPoint() == null) {
+            long afterUserId = cursor != null && cursor.distanceMeters() == null ? cursor.userId() : 0L;
+            return profileRepository.findCandidateIds(viewerId, afterUserId, limit).stream()
+                    .map(userId -> new FeedCandidate(userId, null, null))
+                    .toList();
+        }
+        boolean seek = cursor != null && cursor.distanceMeters() != null;
+        List<NearbyCandidate> rows = geoRepository.findNearestCandidates(
+                viewerId,
+                viewerGeo.getPoint().getY(),
+                viewerGeo.getPoint().getX(),
+                seek ? cursor.distanceMeters() : -1d,
+                seek ? cursor.userId() : 0L,
+                limit);
+        return rows.stream()
+                .map(row -> new FeedCandidate(row.getUserId(), row.getDistanceMeters(), row.getUpdatedAt()))
+                .toList();
+    }
+}
@@ -23,9 +23,10 @@ public class SwipeController {
   @GetMapping("/feed")
   public SwipeFeedResponse feed(
       @RequestHeader("x-telegram-user-id") Long telegramUserId,
-      @RequestParam(value = "limit", required = false) Integer limit
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "cursor", required = false) String cursor
   ) {
-    return swipeService.loadFeed(telegramUserId, limit);
+    return swipeService.loadFeed(telegramUserId, limit, SwipeFeedCursor.decode(cursor));
   }
 
   @PostMapping("/like")
@@ -37,5 +38,19 @@ public class SwipeController {
     return swipeService.like(telegramUserId, request.targetTelegramId());
   }
 
+  @PostMapping("/pass")
+  @ResponseStatus(HttpStatus.OK)
+  public SwipeDecisionResponse pass(
+      @RequestHeader("x-telegram-user-id") Long telegramUserId,
+      @Valid @RequestBody SwipeLikeRequest request
+  ) {
+    return swipeService.pass(telegramUserId, request.targetTelegramId());
+  }
+
+  @GetMapping("/likes-you/count")
+  public LikesYouCountResponse likesYouCount(@RequestHeader("x-telegram-user-id") Long telegramUserId) {
+    return swipeService.likesYouCount(telegramUserId);
+  }
+
   public record SwipeLikeRequest(@NotNull Long targetTelegramId) {}
 }
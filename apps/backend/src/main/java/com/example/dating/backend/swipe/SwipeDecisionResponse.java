@@ -5,5 +5,6 @@ import lombok.Builder;
 @Builder
 public record SwipeDecisionResponse(
     boolean match,
+    Long matchId,
     Long targetTelegramId
 ) {}
@@ -0,0 +1,200 @@
+package com.example.dating.backend.swipe;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fixed-capacity ring buffer of precomputed candidates for one viewer, kept in primitive
+ * arrays so an idle deck costs a few kilobytes. Candidates stay in distance order; the
+ * seek key of the last appended card lets the builder continue where it stopped.
+ */
+final class SwipeDeck {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final long[] userIds;
+    private final double[] distances;
+    private final long[] seenAtMillis;
+
+    private int head;
+    private int size;
+    private int verified;
+    private SwipeFeedCursor tail;
+    private boolean exhausted;
+    private long builtAtMillis;
+    private long generation;
+    private volatile long lastAccessMillis;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    SwipeDeck(int capacity, long nowMillis) {
+        this.userIds = new long[capacity];
+        this.distances = new double[capacity];
+        this.seenAtMillis = new long[capacity];
+        this.builtAtMillis = nowMillis;
+        this.lastAccessMillis = nowMillis;
+    }
+
+    synchronized List<FeedCandidate> peek(int limit) {
+        int count = Math.min(limit, size);
+        List<FeedCandidate> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            result.add(new FeedCandidate(
+                    userIds[slot],
+                    Double.isNaN(distances[slot]) ? null : distances[slot],
+                    seenAtMillis[slot] == NO_TIMESTAMP ? null : Instant.ofEpochMilli(seenAtMillis[slot])));
+        }
+        return result;
+    }
+
+    /**
+     * The first {@code limit} cards, how many of them are already checked against the viewer's
+     * swipes, and the generation to hand back to {@link #markVerified}.
+     */
+    synchronized Page page(int limit) {
+        List<FeedCandidate> cards = peek(limit);
+        return new Page(cards, Math.min(verified, cards.size()), generation);
+    }
+
+    /**
+     * Records that every card up to {@code lastCheckedId} was checked. Without a reset only
+     * removals and appends at the end happen, so the cards before it all came from the checked
+     * page; if it was removed meanwhile nothing is recorded.
+     */
+    synchronized void markVerified(long expectedGeneration, long lastCheckedId) {
+        if (generation != expectedGeneration) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (userIds[slot(i)] == lastCheckedId) {
+                verified = Math.max(verified, i + 1);
+                return;
+            }
+        }
+    }
+
+    synchronized void reset(List<FeedCandidate> candidates, boolean exhausted, long nowMillis) {
+        head = 0;
+        size = 0;
+        verified = 0;
+        tail = null;
+        generation++;
+        builtAtMillis = nowMillis;
+        append(candidates, exhausted);
+    }
+
+    /**
+     * The builder loads batches without holding the deck lock. Only a reset makes such a batch
+     * stale; removing a card does not, since the batch starts after the tail cursor and the
+     * removed card is before it. A stale batch is dropped until the next tick.
+     */
+    synchronized boolean resetIfUnchanged(long expectedGeneration, List<FeedCandidate> candidates,
+                                          boolean exhausted, long nowMillis) {
+        if (generation != expectedGeneration) {
+            return false;
+        }
+        reset(candidates, exhausted, nowMillis);
+        return true;
+    }
+
+    synchronized boolean appendIfUnchanged(long expectedGeneration, List<FeedCandidate> candidates, boolean exhausted) {
+        if (generation != expectedGeneration) {
+            return false;
+        }
+        append(candidates, exhausted);
+        return true;
+    }
+
+    synchronized void remove(long userId) {
+        for (int i = 0; i < size; i++) {
+            if (userIds[slot(i)] != userId) {
+                continue;
+            }
+            if (i == 0) {
+                head = slot(1);
+            } else {
+                for (int j = i; j < size - 1; j++) {
+                    copy(slot(j + 1), slot(j));
+                }
+            }
+            size--;
+            if (i < verified) {
+                verified--;
+            }
+            return;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int remainingCapacity() {
+        return userIds.length - size;
+    }
+
+    synchronized boolean exhausted() {
+        return exhausted;
+    }
+
+    synchronized SwipeFeedCursor tail() {
+        return tail;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized long builtAtMillis() {
+        return builtAtMillis;
+    }
+
+    long lastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
+    }
+
+    /** Claims the deck for one refill; false while another refill is queued or running. */
+    boolean tryStartRefill() {
+        return refilling.compareAndSet(false, true);
+    }
+
+    void finishRefill() {
+        refilling.set(false);
+    }
+
+    private void append(List<FeedCandidate> candidates, boolean exhausted) {
+        for (FeedCandidate candidate : candidates) {
+            if (size == userIds.length) {
+                break;
+            }
+            int slot = slot(size);
+            userIds[slot] = candidate.userId();
+            distances[slot] = candidate.distanceMeters() != null ? candidate.distanceMeters() : Double.NaN;
+            seenAtMillis[slot] = candidate.locationUpdatedAt() != null
+                    ? candidate.locationUpdatedAt().toEpochMilli()
+                    : NO_TIMESTAMP;
+            size++;
+            tail = candidate.toCursor();
+        }
+        this.exhausted = exhausted;
+    }
+
+    private void copy(int from, int to) {
+        userIds[to] = userIds[from];
+        distances[to] = distances[from];
+        seenAtMillis[to] = seenAtMillis[from];
+    }
+
+    private int slot(int offset) {
+        return (head + offset) % userIds.length;
+    }
+
+    record Page(List<FeedCandidate> cards, int verified, long generation) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.dating.backend.swipe;
+
+import com.example.dating.backend.geo.GeoLocation;
+import com.example.dating.backend.geo.GeoLocationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refills decks that fell below the low watermark or went stale. Each tick only picks decks that
+ * need work, shortest first, and loads them on a small pool. Refills that could not start within
+ * the tick's time budget are skipped and picked up by the next tick.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SwipeDeckBuilder {
+
+    private final SwipeDeckStore deckStore;
+    private final SwipeCandidateFinder candidateFinder;
+    private final GeoLocationRepository geoRepository;
+
+    @Value("${swipe.deck.low-watermark:40}")
+    private int lowWatermark;
+
+    @Value("${swipe.deck.idle-ttl-ms:900000}")
+    private long idleTtlMillis;
+
+    @Value("${swipe.deck.max-age-ms:600000}")
+    private long maxAgeMillis;
+
+    @Value("${swipe.deck.refill-threads:4}")
+    private int refillThreads;
+
+    @Value("${swipe.deck.refill-budget-ms:1500}")
+    private long refillBudgetMillis;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(refillThreads, task -> {
+            Thread thread = new Thread(task, "swipe-deck-refill-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${swipe.deck.refresh-interval-ms:2000}")
+    public void refill() {
+        long now = System.currentTimeMillis();
+        long deadline = now + refillBudgetMillis;
+        List<Map.Entry<Long, SwipeDeck>> due = new ArrayList<>();
+        deckStore.forEach((viewerId, deck) -> {
+            if (now - deck.lastAccessMillis() > idleTtlMillis) {
+                deckStore.invalidate(viewerId);
+            } else if (needsRefill(deck, now) && deck.tryStartRefill()) {
+                due.add(Map.entry(viewerId, deck));
+            }
+        });
+        due.sort(Comparator.comparingInt(entry -> entry.getValue().size()));
+
+        for (Map.Entry<Long, SwipeDeck> entry : due) {
+            Long viewerId = entry.getKey();
+            SwipeDeck deck = entry.getValue();
+            executor.execute(() -> {
+                try {
+                    if (System.currentTimeMillis() < deadline) {
+                        refill(viewerId, deck, now);
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("swipe_deck_refill_failed viewerId={}", viewerId, ex);
+                } finally {
+                    deck.finishRefill();
+                }
+            });
+        }
+    }
+
+    private boolean needsRefill(SwipeDeck deck, long now) {
+        boolean stale = now - deck.builtAtMillis() > maxAgeMillis;
+        return stale || (!deck.exhausted() && deck.size() < lowWatermark);
+    }
+
+    private void refill(Long viewerId, SwipeDeck deck, long now) {
+        boolean stale = now - deck.builtAtMillis() > maxAgeMillis;
+        long generation = deck.generation();
+        GeoLocation viewerGeo = geoRepository.findById(viewerId).orElse(null);
+        if (stale) {
+            int capacity = deck.size() + deck.remainingCapacity();
+            List<FeedCandidate> candidates = candidateFinder.find(viewerId, viewerGeo, null, capacity);
+            deck.resetIfUnchanged(generation, candidates, candidates.size() < capacity, now);
+            return;
+        }
+
+        int wanted = deck.remainingCapacity();
+        List<FeedCandidate> candidates = candidateFinder.find(viewerId, viewerGeo, deck.tail(), wanted);
+        deck.appendIfUnchanged(generation, candidates, candidates.size() < wanted);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.dating.backend.swipe;
+
+import com.example.dating.backend.profile.ProfileLocationChangedEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-viewer decks of precomputed candidate ids. Decks are only kept for viewers that opened
+ * the feed recently; {@link SwipeDeckBuilder} refills them in the background.
+ */
+@Component
+public class SwipeDeckStore {
+
+    private final Map<Long, SwipeDeck> decks = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxDecks;
+
+    public SwipeDeckStore(
+            @Value("${swipe.deck.enabled:true}") boolean enabled,
+            @Value("${swipe.deck.capacity:100}") int capacity,
+            @Value("${swipe.deck.max-decks:20000}") int maxDecks
+    ) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.maxDecks = maxDecks;
+    }
+
+    /**
+     * Returns the first {@code limit} cards of the viewer's deck, or {@code null} when the deck
+     * is missing or too short to serve the page without going to the database.
+     */
+    SwipeDeck.Page peek(Long viewerId, int limit) {
+        SwipeDeck deck = decks.get(viewerId);
+        if (deck == null) {
+            return null;
+        }
+        deck.touch(System.currentTimeMillis());
+        if (deck.size() < limit && !deck.exhausted()) {
+            return null;
+        }
+        return deck.page(limit);
+    }
+
+    void markVerified(Long viewerId, SwipeDeck.Page page) {
+        SwipeDeck deck = decks.get(viewerId);
+        if (deck != null) {
+            if (!page.cards().isEmpty()) {
+                deck.markVerified(page.generation(), page.cards().get(page.cards().size() - 1).userId());
+            }
+        }
+    }
+
+    void seed(Long viewerId, List<FeedCandidate> candidates, boolean exhausted) {
+        if (!enabled || full(viewerId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        SwipeDeck deck = decks.computeIfAbsent(viewerId, ignored -> new SwipeDeck(capacity, now));
+        deck.touch(now);
+        deck.reset(candidates, exhausted, now);
+    }
+
+    /**
+     * Removes the card once the surrounding transaction commits, so a rolled-back swipe keeps it.
+     * Without a transaction the card is removed immediately.
+     */
+    void consume(Long viewerId, Long candidateId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            discard(viewerId, candidateId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                discard(viewerId, candidateId);
+            }
+        });
+    }
+
+    void discard(Long viewerId, Long candidateId) {
+        SwipeDeck deck = decks.get(viewerId);
+        if (deck != null) {
+            deck.remove(candidateId);
+        }
+    }
+
+    void invalidate(Long viewerId) {
+        decks.remove(viewerId);
+    }
+
+    void forEach(BiConsumer<Long, SwipeDeck> action) {
+        decks.forEach(action);
+    }
+
+    /**
+     * Rebuilds the mover's own deck and drops the mover's card from every other deck on this
+     * node, so no viewer keeps serving it at the old distance. A refill brings the card back at
+     * the new distance if that is beyond the deck's tail; otherwise it returns with the deck's
+     * next rebuild. Removing does not cancel refills, so a batch already in flight can still
+     * append the card at the old distance, and decks on other nodes keep it until that rebuild;
+     * staleness is bounded by {@code swipe.deck.max-age-ms}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(ProfileLocationChangedEvent event) {
+        invalidate(event.userId());
+        decks.values().forEach(deck -> deck.remove(event.userId()));
+    }
+
+    private boolean full(Long viewerId) {
+        return decks.size() >= maxDecks && !decks.containsKey(viewerId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.dating.backend.swipe;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Append-only record of every profile a user has swiped on, in either direction. The feed
+ * anti-joins this table so a profile is served at most once.
+ */
+@Entity
+@Table(name = "swipe_events",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"from_user_id", "to_user_id", "direction"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SwipeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "from_user_id", nullable = false)
+    private Long fromUserId;
+
+    @Column(name = "to_user_id", nullable = false)
+    private Long toUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 16)
+    private SwipeEventType direction;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
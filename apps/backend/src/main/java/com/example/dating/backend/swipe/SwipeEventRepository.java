@@ -0,0 +1,31 @@
+package com.example.dating.backend.swipe;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SwipeEventRepository extends JpaRepository<SwipeEvent, Long>, SwipeEventRepositoryCustom {
+    @Modifying
+    @Query(value = """
+            INSERT INTO swipe_events (from_user_id, to_user_id, direction, created_at)
+            VALUES (:fromUserId, :toUserId, 'PASS', now())
+            ON CONFLICT (from_user_id, to_user_id, direction) DO NOTHING
+            """, nativeQuery = true)
+    int recordPass(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM swipe_events
+            WHERE from_user_id = :fromUserId AND to_user_id = :toUserId AND direction = 'PASS'
+            """, nativeQuery = true)
+    int deletePass(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    @Query(value = """
+            SELECT DISTINCT to_user_id FROM swipe_events
+            WHERE from_user_id = :fromUserId AND to_user_id IN (:toUserIds)
+            """, nativeQuery = true)
+    List<Long> findSwipedTargets(@Param("fromUserId") Long fromUserId, @Param("toUserIds") Collection<Long> toUserIds);
+}
@@ -0,0 +1,8 @@
+package com.example.dating.backend.swipe;
+
+public interface SwipeEventRepositoryCustom {
+    /**
+     * Records the given passes in one statement; passes that already exist are skipped.
+     */
+    void insertPasses(long[] fromUserIds, long[] toUserIds);
+}
@@ -0,0 +1,37 @@
+package com.example.dating.backend.swipe;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+class SwipeEventRepositoryImpl implements SwipeEventRepositoryCustom {
+    private static final String INSERT_PASSES_SQL = """
+            INSERT INTO swipe_events (from_user_id, to_user_id, direction, created_at)
+            SELECT DISTINCT from_user_id, to_user_id, 'PASS', now()
+            FROM unnest(?::bigint[], ?::bigint[]) AS t(from_user_id, to_user_id)
+            ON CONFLICT (from_user_id, to_user_id, direction) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertPasses(long[] fromUserIds, long[] toUserIds) {
+        jdbcTemplate.execute(INSERT_PASSES_SQL, (PreparedStatement ps) -> {
+            Array from = ps.getConnection().createArrayOf("bigint", box(fromUserIds));
+            Array to = ps.getConnection().createArrayOf("bigint", box(toUserIds));
+            ps.setArray(1, from);
+            ps.setArray(2, to);
+            return ps.executeUpdate();
+        });
+    }
+
+    private static Long[] box(long[] values) {
+        Long[] boxed = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.dating.backend.swipe;
+
+public enum SwipeEventType {
+    LIKE,
+    PASS
+}
@@ -0,0 +1,34 @@
+package com.example.dating.backend.swipe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Seek key of the last card served in a feed page. Geo-ranked pages carry the distance as the
+ * primary key; pages for viewers without a location only carry the user id.
+ */
+public record SwipeFeedCursor(Double distanceMeters, long userId) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = (distanceMeters != null ? distanceMeters.toString() : "") + SEPARATOR + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SwipeFeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            String distance = raw.substring(0, separator);
+            return new SwipeFeedCursor(
+                    distance.isEmpty() ? null : Double.valueOf(distance),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed feed cursor", ex);
+        }
+    }
+}
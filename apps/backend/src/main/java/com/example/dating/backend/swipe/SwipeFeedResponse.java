@@ -7,5 +7,6 @@ import lombok.Builder;
 @Builder
 public record SwipeFeedResponse(
     OffsetDateTime timestamp,
-    List<SwipeFeedItem> items
+    List<SwipeFeedItem> items,
+    String nextCursor
 ) {}
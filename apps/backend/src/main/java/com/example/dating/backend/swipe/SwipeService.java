@@ -2,29 +2,23 @@ package com.example.dating.backend.swipe;
 
 import com.example.dating.backend.geo.GeoLocation;
 import com.example.dating.backend.geo.GeoLocationRepository;
-import com.example.dating.backend.match.Like;
+import com.example.dating.backend.match.LikeIndex;
+import com.example.dating.backend.match.LikeIngestor;
+import com.example.dating.backend.match.LikeRecorder;
 import com.example.dating.backend.match.LikeRepository;
-import com.example.dating.backend.match.Match;
-import com.example.dating.backend.match.MatchRepository;
+import com.example.dating.backend.profile.InterestDictionary;
 import com.example.dating.backend.profile.Profile;
-import com.example.dating.backend.profile.ProfileInterestEntity;
-import com.example.dating.backend.profile.ProfileInterestRepository;
 import com.example.dating.backend.profile.ProfileRepository;
 import com.example.dating.backend.user.User;
 import com.example.dating.backend.user.UserRepository;
 import com.example.dating.backend.user.UserService;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,66 +27,47 @@ import org.springframework.transaction.annotation.Transactional;
 public class SwipeService {
 
     private static final int DEFAULT_FEED_SIZE = 20;
+    private static final int MAX_FEED_SIZE = 100;
+    private static final int DECK_FILTER_ATTEMPTS = 2;
 
     private final UserService userService;
     private final UserRepository userRepository;
     private final ProfileRepository profileRepository;
-    private final ProfileInterestRepository interestRepository;
+    private final InterestDictionary interestDictionary;
     private final GeoLocationRepository geoRepository;
+    private final LikeIngestor likeIngestor;
+    private final LikeIndex likeIndex;
     private final LikeRepository likeRepository;
-    private final MatchRepository matchRepository;
+    private final PassIngestor passIngestor;
+    private final SwipeEventRepository swipeEventRepository;
+    private final SwipeCandidateFinder candidateFinder;
+    private final SwipeDeckStore deckStore;
+    private final FeedRankingStage rankingStage;
 
     @Transactional(readOnly = true)
-    public SwipeFeedResponse loadFeed(Long telegramId, Integer limitOverride) {
+    public SwipeFeedResponse loadFeed(Long telegramId, Integer limitOverride, SwipeFeedCursor cursor) {
         User user = userService.ensureUserExists(telegramId, null);
-        GeoLocation viewerGeo = geoRepository.findById(user.getId()).orElse(null);
-
-        Set<Long> likedUserIds = likeRepository.findByFromUserId(user.getId()).stream()
-                .map(Like::getToUserId)
-                .collect(Collectors.toSet());
-
-        int feedSize = limitOverride != null && limitOverride > 0 ? limitOverride : DEFAULT_FEED_SIZE;
-        int fetchSize = Math.min(feedSize * 2, 100);
-
-        List<Profile> candidates = profileRepository
-                .findByUserIdNot(user.getId(), PageRequest.of(0, fetchSize))
-                .getContent().stream()
-                .filter(candidate -> !likedUserIds.contains(candidate.getUserId()))
-                .limit(feedSize)
-                .toList();
-
-        if (candidates.isEmpty()) {
-            return SwipeFeedResponse.builder()
-                    .timestamp(OffsetDateTime.now())
-                    .items(List.of())
-                    .build();
-        }
-
-        Map<Long, List<String>> interests = loadInterests(candidates);
-        Map<Long, GeoLocation> geoByUserId = geoRepository.findAllById(
-                        candidates.stream().map(Profile::getUserId).toList())
-                .stream()
-                .collect(Collectors.toMap(GeoLocation::getUserId, Function.identity()));
-
-        List<SwipeFeedItem> items = new ArrayList<>();
-        for (Profile candidate : candidates) {
-            if (candidate.getUserId().equals(user.getId())) {
-                continue;
+        int feedSize = Math.min(limitOverride != null && limitOverride > 0 ? limitOverride : DEFAULT_FEED_SIZE,
+                MAX_FEED_SIZE);
+
+        List<FeedCandidate> candidates = cursor == null ? peekDeck(user.getId(), feedSize) : null;
+        if (candidates == null) {
+            GeoLocation viewerGeo = geoRepository.findById(user.getId()).orElse(null);
+            candidates = candidateFinder.find(user.getId(), viewerGeo, cursor, feedSize);
+            if (cursor == null) {
+                deckStore.seed(user.getId(), candidates, candidates.size() < feedSize);
             }
-
-            GeoLocation geo = geoByUserId.get(candidate.getUserId());
-            items.add(SwipeFeedItem.from(
-                    candidate,
-                    interests.getOrDefault(candidate.getUserId(), List.of()),
-                    viewerGeo,
-                    geo));
         }
 
-        items.sort(Comparator.comparing(item -> Optional.ofNullable(item.distanceMeters()).orElse(Double.MAX_VALUE)));
+        String nextCursor = null;
+        if (candidates.size() == feedSize) {
+            nextCursor = candidates.get(candidates.size() - 1).toCursor().encode();
+        }
 
         return SwipeFeedResponse.builder()
                 .timestamp(OffsetDateTime.now())
-                .items(items)
+                .items(candidates.isEmpty() ? List.of() : hydrate(user.getId(), candidates))
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -102,31 +77,24 @@ public class SwipeService {
         User target = userRepository.findByTelegramId(targetTelegramId)
                 .orElseThrow(() -> new IllegalArgumentException("Target user not found"));
 
-        boolean alreadyLiked = likeRepository.existsByFromUserIdAndToUserId(actor.getId(), target.getId());
-        if (!alreadyLiked) {
-            likeRepository.save(Like.builder()
-                    .fromUserId(actor.getId())
-                    .toUserId(target.getId())
-                    .createdAt(OffsetDateTime.now())
-                    .build());
-        }
+        LikeRecorder.LikeOutcome outcome = likeIngestor.submit(actor.getId(), target.getId());
+        deckStore.consume(actor.getId(), target.getId());
 
-        boolean reciprocal = likeRepository.existsByFromUserIdAndToUserId(target.getId(), actor.getId());
-        if (reciprocal) {
-            long u1 = Math.min(actor.getId(), target.getId());
-            long u2 = Math.max(actor.getId(), target.getId());
-            if (!matchRepository.existsByUser1IdAndUser2Id(u1, u2)) {
-                matchRepository.save(Match.builder()
-                        .user1Id(u1)
-                        .user2Id(u2)
-                        .createdAt(OffsetDateTime.now())
-                        .build());
-            }
-            return SwipeDecisionResponse.builder()
-                    .match(true)
-                    .targetTelegramId(targetTelegramId)
-                    .build();
-        }
+        return SwipeDecisionResponse.builder()
+                .match(outcome.matched())
+                .matchId(outcome.matchId())
+                .targetTelegramId(targetTelegramId)
+                .build();
+    }
+
+    @Transactional
+    public SwipeDecisionResponse pass(Long telegramId, Long targetTelegramId) {
+        User actor = userService.ensureUserExists(telegramId, null);
+        User target = userRepository.findByTelegramId(targetTelegramId)
+                .orElseThrow(() -> new IllegalArgumentException("Target user not found"));
+
+        passIngestor.submit(actor.getId(), target.getId());
+        deckStore.consume(actor.getId(), target.getId());
 
         return SwipeDecisionResponse.builder()
                 .match(false)
@@ -134,10 +102,89 @@ public class SwipeService {
                 .build();
     }
 
-    private Map<Long, List<String>> loadInterests(Collection<Profile> candidates) {
-        Set<Long> userIds = candidates.stream().map(Profile::getUserId).collect(Collectors.toSet());
-        List<ProfileInterestEntity> interests = interestRepository.findByUserIdIn(userIds);
-        return interests.stream().collect(Collectors.groupingBy(ProfileInterestEntity::getUserId,
-                Collectors.mapping(ProfileInterestEntity::getValue, Collectors.toList())));
+    /**
+     * Takes back a pass so the profile can show up in the feed again. Likes are not undone; a
+     * restored card the viewer had liked stays liked.
+     */
+    @Transactional
+    public void undoPass(Long telegramId, Long targetTelegramId) {
+        User actor = userService.ensureUserExists(telegramId, null);
+        userRepository.findByTelegramId(targetTelegramId)
+                .ifPresent(target -> {
+                    passIngestor.cancel(actor.getId(), target.getId());
+                    swipeEventRepository.deletePass(actor.getId(), target.getId());
+                });
+    }
+
+    @Transactional(readOnly = true)
+    public LikesYouCountResponse likesYouCount(Long telegramId) {
+        long count = userRepository.findByTelegramId(telegramId)
+                .map(user -> likeIndex.isReady()
+                        ? likeIndex.likedByCount(user.getId())
+                        : likeRepository.countByToUserId(user.getId()))
+                .orElse(0L);
+        return new LikesYouCountResponse(count);
+    }
+
+    /**
+     * Deck page with cards the viewer already swiped removed. Refills read the database without
+     * the swipes of in-flight transactions, so a deck can hold such cards until they are served.
+     * Each card is checked once: the deck remembers its checked prefix, so a serve after a swipe
+     * only queries the cards that moved into the page. Swipes recorded on this node remove the
+     * card directly; a checked card swiped through another node stays until the deck's next
+     * rebuild ({@code swipe.deck.max-age-ms}). Returns {@code null} when the cleaned deck cannot
+     * fill the page.
+     */
+    private List<FeedCandidate> peekDeck(Long viewerId, int limit) {
+        for (int attempt = 0; attempt < DECK_FILTER_ATTEMPTS; attempt++) {
+            SwipeDeck.Page page = deckStore.peek(viewerId, limit);
+            if (page == null) {
+                return null;
+            }
+            List<FeedCandidate> cards = page.cards();
+            List<Long> unchecked = cards.subList(page.verified(), cards.size()).stream()
+                    .map(FeedCandidate::userId)
+                    .toList();
+            List<Long> swiped = unchecked.isEmpty()
+                    ? List.of()
+                    : swipeEventRepository.findSwipedTargets(viewerId, unchecked);
+            if (swiped.isEmpty()) {
+                deckStore.markVerified(viewerId, page);
+                return cards;
+            }
+            swiped.forEach(candidateId -> deckStore.discard(viewerId, candidateId));
+        }
+        return null;
+    }
+
+    private List<SwipeFeedItem> hydrate(Long viewerId, List<FeedCandidate> candidates) {
+        List<Long> userIds = new ArrayList<>(candidates.size() + 1);
+        candidates.forEach(candidate -> userIds.add(candidate.userId()));
+        userIds.add(viewerId);
+        Map<Long, Profile> profiles = profileRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(Profile::getUserId, Function.identity()));
+
+        List<FeedCandidate> shown = new ArrayList<>(candidates.size());
+        List<Profile> shownProfiles = new ArrayList<>(candidates.size());
+        for (FeedCandidate candidate : candidates) {
+            Profile profile = profiles.get(candidate.userId());
+            if (profile != null) {
+                shown.add(candidate);
+                shownProfiles.add(profile);
+            }
+        }
+
+        int[] order = rankingStage.order(profiles.get(viewerId), shown, shownProfiles, System.currentTimeMillis());
+        List<SwipeFeedItem> items = new ArrayList<>(order.length);
+        for (int index : order) {
+            FeedCandidate candidate = shown.get(index);
+            Profile profile = shownProfiles.get(index);
+            items.add(SwipeFeedItem.from(
+                    profile,
+                    interestDictionary.labelsOf(profile.getInterestIds()),
+                    candidate.distanceMeters(),
+                    candidate.locationUpdatedAt()));
+        }
+        return items;
     }
 }
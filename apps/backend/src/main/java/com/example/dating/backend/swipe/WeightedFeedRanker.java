@@ -0,0 +1,61 @@
+package com.example.dating.backend.swipe;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default ranking: a weighted sum of exponential distance decay, interest overlap, exponential
+ * recency of the candidate's last location update and a flat boost for VIP profiles.
+ */
+@Component
+public class WeightedFeedRanker implements FeedRanker {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000d;
+
+    private final double distanceWeight;
+    private final double distanceScaleMeters;
+    private final double interestWeight;
+    private final double recencyWeight;
+    private final double recencyScaleHours;
+    private final double vipBoost;
+
+    public WeightedFeedRanker(
+            @Value("${swipe.ranking.distance-weight:1.0}") double distanceWeight,
+            @Value("${swipe.ranking.distance-scale-meters:5000}") double distanceScaleMeters,
+            @Value("${swipe.ranking.interest-weight:1.0}") double interestWeight,
+            @Value("${swipe.ranking.recency-weight:0.5}") double recencyWeight,
+            @Value("${swipe.ranking.recency-scale-hours:72}") double recencyScaleHours,
+            @Value("${swipe.ranking.vip-boost:0.2}") double vipBoost) {
+        if (distanceWeight < 0 || interestWeight < 0 || recencyWeight < 0 || vipBoost < 0
+                || distanceScaleMeters <= 0 || recencyScaleHours <= 0) {
+            throw new IllegalArgumentException("Ranking weights must be non-negative and scales positive");
+        }
+        this.distanceWeight = distanceWeight;
+        this.distanceScaleMeters = distanceScaleMeters;
+        this.interestWeight = interestWeight;
+        this.recencyWeight = recencyWeight;
+        this.recencyScaleHours = recencyScaleHours;
+        this.vipBoost = vipBoost;
+    }
+
+    @Override
+    public void score(RankingBatch batch, double[] scores) {
+        long now = batch.nowMillis();
+        for (int i = 0; i < batch.size(); i++) {
+            double score = interestWeight * batch.interestOverlap(i);
+            double distance = batch.distance(i);
+            if (!Double.isNaN(distance)) {
+                score += distanceWeight * Math.exp(-distance / distanceScaleMeters);
+            }
+            long updatedAt = batch.updatedAtMillis(i);
+            if (updatedAt != RankingBatch.NO_TIMESTAMP) {
+                double ageHours = Math.max(0, now - updatedAt) / MILLIS_PER_HOUR;
+                score += recencyWeight * Math.exp(-ageHours / recencyScaleHours);
+            }
+            if (batch.vip(i)) {
+                score += vipBoost;
+            }
+            scores[i] = score;
+        }
+    }
+}
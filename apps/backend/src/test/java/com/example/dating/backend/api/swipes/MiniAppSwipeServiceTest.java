@@ -6,57 +6,153 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.example.dating.backend.swipe.SwipeDecisionResponse;
+import com.example.dating.backend.swipe.SwipeFeedCursor;
+import com.example.dating.backend.swipe.SwipeFeedItem;
+import com.example.dating.backend.swipe.SwipeFeedResponse;
+import com.example.dating.backend.swipe.SwipeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 class MiniAppSwipeServiceTest {
 
+    private static final String NEXT_CURSOR = new SwipeFeedCursor(3000d, 444444L).encode();
+
+    private SwipeService swipeService;
     private MiniAppSwipeService service;
 
     @BeforeEach
     void setUp() {
-        service = new MiniAppSwipeService();
+        swipeService = mock(SwipeService.class);
+        when(swipeService.loadFeed(eq(111111L), anyInt(), isNull()))
+                .thenReturn(page(NEXT_CURSOR, 222222L, 333333L, 444444L));
+        when(swipeService.loadFeed(eq(111111L), anyInt(), any(SwipeFeedCursor.class)))
+                .thenReturn(page(null, 555555L));
+
+        SwipeSessionStore store = new SwipeSessionStore(
+                mock(SwipeSessionRepository.class), new ObjectMapper().findAndRegisterModules(), 1_000, 60_000, 0);
+        service = new MiniAppSwipeService(store, swipeService, Runnable::run, 2, 3);
     }
 
     @Test
-    void fetchQueueReturnsSeededProfilesForKnownUser() {
+    void fetchQueueServesRankedFeedForNewSession() {
         SwipeQueue queue = service.fetchQueue(111111L);
 
-        assertNotNull(queue);
-        assertEquals(3, queue.items().size());
         assertFalse(queue.undoAvailable());
         assertThat(queue.items())
                 .extracting(item -> item.profile().telegramId())
                 .containsExactly(222222L, 333333L, 444444L);
+        assertEquals(1.0, queue.items().get(0).distanceKm());
+        assertNull(queue.items().get(0).profile().location().latitude());
     }
 
     @Test
-    void likeRemovesProfileFromQueueAndMarksMatchForEvenTelegramId() {
+    void likeReportsMatchFromLikeStore() {
+        when(swipeService.like(111111L, 222222L))
+                .thenReturn(SwipeDecisionResponse.builder().match(true).matchId(42L).targetTelegramId(222222L).build());
+
         SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(222222L, SwipeDirection.LIKE));
 
         assertTrue(response.matched());
-        assertNotNull(response.matchId());
-        assertEquals(2, response.queue().items().size());
-        assertTrue(response.queue().undoAvailable());
+        assertEquals("42", response.matchId());
+        assertFalse(response.queue().undoAvailable());
         assertThat(response.queue().items())
                 .extracting(item -> item.profile().telegramId())
                 .doesNotContain(222222L);
     }
 
     @Test
-    void dislikeRemovesProfileButDoesNotMatch() {
+    void swipeWithKnownVersionReturnsDeltaInsteadOfQueue() {
+        SwipeQueue queue = service.fetchQueue(111111L);
+        long version = queue.version();
+
+        SwipeResponse response = service.processSwipe(
+                111111L, new SwipeRequest(222222L, SwipeDirection.DISLIKE, version, queue.epoch()));
+
+        assertNull(response.queue());
+        assertEquals(queue.epoch(), response.delta().epoch());
+        assertEquals(version, response.delta().fromVersion());
+        SwipeQueueOp first = response.delta().ops().get(0);
+        assertEquals(SwipeQueueOp.Type.REMOVE, first.type());
+        assertEquals(222222L, first.telegramId());
+        assertEquals(response.delta().toVersion(), response.delta().ops().get(response.delta().ops().size() - 1).version());
+
+        SwipeResponse stale = service.processSwipe(
+                111111L, new SwipeRequest(null, SwipeDirection.UNDO, response.delta().toVersion() + 10, queue.epoch()));
+        assertNull(stale.delta());
+        assertEquals(222222L, stale.queue().items().get(0).profile().telegramId());
+
+        SwipeResponse foreign = service.processSwipe(
+                111111L, new SwipeRequest(222222L, SwipeDirection.DISLIKE, stale.queue().version(), queue.epoch() + 1));
+        assertNull(foreign.delta());
+        assertNotNull(foreign.queue());
+    }
+
+    @Test
+    void dislikeRecordsPassInsteadOfLike() {
         SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(222222L, SwipeDirection.DISLIKE));
 
         assertFalse(response.matched());
         assertNull(response.matchId());
-        assertEquals(2, response.queue().items().size());
         assertTrue(response.queue().undoAvailable());
         assertThat(response.queue().items())
                 .extracting(item -> item.profile().telegramId())
                 .doesNotContain(222222L);
+        verify(swipeService).pass(111111L, 222222L);
+        verify(swipeService, never()).like(any(), any());
+    }
+
+    @Test
+    void undoingDislikeTakesBackThePass() {
+        service.processSwipe(111111L, new SwipeRequest(222222L, SwipeDirection.DISLIKE));
+
+        SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(null, SwipeDirection.UNDO));
+
+        verify(swipeService).undoPass(111111L, 222222L);
+        assertEquals(222222L, response.queue().items().get(0).profile().telegramId());
+    }
+
+    @Test
+    void likeCannotBeUndone() {
+        when(swipeService.like(111111L, 222222L))
+                .thenReturn(SwipeDecisionResponse.builder().match(false).targetTelegramId(222222L).build());
+        service.processSwipe(111111L, new SwipeRequest(222222L, SwipeDirection.LIKE));
+
+        SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(null, SwipeDirection.UNDO));
+
+        verify(swipeService, never()).undoPass(any(), any());
+        assertFalse(response.queue().undoAvailable());
+        assertThat(response.queue().items())
+                .extracting(item -> item.profile().telegramId())
+                .containsExactly(333333L, 444444L);
+    }
+
+    @Test
+    void queueBelowWatermarkIsRefilledFromNextCursor() {
+        service.processSwipe(111111L, new SwipeRequest(222222L, SwipeDirection.DISLIKE));
+        SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(333333L, SwipeDirection.DISLIKE));
+
+        verify(swipeService).loadFeed(111111L, 3, SwipeFeedCursor.decode(NEXT_CURSOR));
+        SwipeQueue queue = service.fetchQueue(111111L);
+        assertThat(queue.items())
+                .extracting(item -> item.profile().telegramId())
+                .containsExactly(444444L, 555555L);
+        assertThat(response.queue().items()).hasSize(1);
     }
 
     @Test
@@ -66,19 +162,17 @@ class MiniAppSwipeServiceTest {
 
         assertFalse(response.matched());
         List<SwipeQueueItem> items = response.queue().items();
-        assertEquals(3, items.size());
         assertEquals(222222L, items.get(0).profile().telegramId());
         assertFalse(response.queue().undoAvailable());
     }
 
     @Test
     void undoWithoutHistoryKeepsQueueUntouched() {
-        SwipeQueue before = service.fetchQueue(777777L);
-        SwipeResponse response = service.processSwipe(777777L, new SwipeRequest(null, SwipeDirection.UNDO));
+        SwipeQueue before = service.fetchQueue(111111L);
+        SwipeResponse response = service.processSwipe(111111L, new SwipeRequest(null, SwipeDirection.UNDO));
 
         assertFalse(response.matched());
         assertFalse(response.queue().undoAvailable());
-        assertEquals(before.items().size(), response.queue().items().size());
         List<Long> expectedOrder = before.items().stream()
                 .map(item -> item.profile().telegramId())
                 .toList();
@@ -86,4 +180,22 @@ class MiniAppSwipeServiceTest {
                 .extracting(item -> item.profile().telegramId())
                 .containsExactlyElementsOf(expectedOrder);
     }
+
+    private static SwipeFeedResponse page(String nextCursor, Long... telegramIds) {
+        List<SwipeFeedItem> items = Arrays.stream(telegramIds)
+                .map(id -> SwipeFeedItem.builder()
+                        .telegramId(id)
+                        .displayName("user" + id)
+                        .city("Москва")
+                        .distanceMeters(1000d)
+                        .lastSeen(OffsetDateTime.now())
+                        .interests(List.of("музыка"))
+                        .build())
+                .toList();
+        return SwipeFeedResponse.builder()
+                .timestamp(OffsetDateTime.now())
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.dating.backend.api.swipes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.dating.backend.api.profiles.ProfileResponse;
+
+class SwipeCardQueueTest {
+
+    @Test
+    void removesFromAnyPositionAndRestoresToFront() {
+        SwipeCardQueue queue = new SwipeCardQueue(List.of(item(1), item(2), item(3)));
+
+        assertEquals(2L, queue.remove(2L).profile().telegramId());
+        assertNull(queue.remove(2L));
+        queue.addFirst(item(2));
+
+        assertThat(queue.view())
+                .extracting(item -> item.profile().telegramId())
+                .containsExactly(2L, 1L, 3L);
+        assertFalse(queue.addLast(item(3)));
+    }
+
+    @Test
+    void viewIsImmutableAndReusedUntilNextChange() {
+        SwipeCardQueue queue = new SwipeCardQueue(List.of(item(1), item(2)));
+
+        List<SwipeQueueItem> view = queue.view();
+        assertSame(view, queue.view());
+        assertThrows(UnsupportedOperationException.class, () -> view.add(item(3)));
+
+        queue.remove(1L);
+        assertEquals(2, view.size());
+        assertEquals(1, queue.view().size());
+    }
+
+    @Test
+    void swipingAndUndoingKeepEarlierViewsIntact() {
+        SwipeQueueItem first = item(1);
+        SwipeCardQueue queue = new SwipeCardQueue(List.of(first, item(2), item(3), item(4)));
+        List<SwipeQueueItem> full = queue.view();
+
+        queue.remove(1L);
+        queue.remove(4L);
+        List<SwipeQueueItem> middle = queue.view();
+        queue.addFirst(first);
+        queue.remove(3L);
+
+        assertThat(full).extracting(item -> item.profile().telegramId()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(middle).extracting(item -> item.profile().telegramId()).containsExactly(2L, 3L);
+        assertThat(queue.view()).extracting(item -> item.profile().telegramId()).containsExactly(1L, 2L);
+        assertThrows(UnsupportedOperationException.class, () -> middle.remove(0));
+    }
+
+    @Test
+    void matchesReferenceModelUnderRandomOperations() {
+        Random random = new Random(42);
+        SwipeCardQueue queue = new SwipeCardQueue(List.of());
+        Map<Long, SwipeQueueItem> reference = new LinkedHashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(300) * 1024L;
+            if (random.nextBoolean()) {
+                SwipeQueueItem item = item(id);
+                assertEquals(reference.putIfAbsent(id, item) == null, queue.addLast(item));
+            } else {
+                SwipeQueueItem expected = reference.remove(id);
+                assertSame(expected, queue.remove(id));
+            }
+            assertEquals(reference.size(), queue.size());
+        }
+
+        assertEquals(new ArrayList<>(reference.values()), queue.view());
+        for (Long id : reference.keySet()) {
+            assertThat(queue.contains(id)).isTrue();
+        }
+    }
+
+    private static SwipeQueueItem item(long telegramId) {
+        return new SwipeQueueItem(new ProfileResponse(telegramId, "n", null, List.of(), null, null, null), null);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.dating.backend.api.swipes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.dating.backend.api.profiles.ProfileLocation;
+import com.example.dating.backend.api.profiles.ProfileResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SwipeSessionStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SwipeSessionRepository repository;
+    private SwipeSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SwipeSessionRepository.class);
+        store = new SwipeSessionStore(repository, objectMapper, 100, 60_000, 0);
+    }
+
+    @Test
+    void flushWritesDirtySessionsAndRestoresThemOnAnotherNode() {
+        SwipeSession session = store.get(1L, id -> new SwipeSession(List.of(item(2L)), List.of(passed(3L)), 0L));
+        store.markDirty(1L, session);
+        when(repository.upsertAllIfVersionMatches(anyList())).thenReturn(new boolean[] {true});
+
+        store.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SwipeSessionEntity>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsertAllIfVersionMatches(rows.capture());
+        SwipeSessionEntity row = rows.getValue().get(0);
+        assertEquals(1L, row.getVersion());
+        assertEquals(1L, session.persistedVersion());
+
+        SwipeSessionRepository otherRepository = mock(SwipeSessionRepository.class);
+        when(otherRepository.findById(1L)).thenReturn(Optional.of(row));
+        SwipeSession restored = new SwipeSessionStore(otherRepository, objectMapper, 100, 60_000, 0)
+                .get(1L, id -> { throw new AssertionError("should load persisted session"); });
+
+        assertEquals(session.queue().view(), restored.queue().view());
+        assertEquals(List.copyOf(session.history()), List.copyOf(restored.history()));
+        assertEquals(1L, restored.persistedVersion());
+    }
+
+    @Test
+    void versionConflictMergesStoredCopyAndRewrites() throws Exception {
+        SwipeSession session = store.get(1L, id -> new SwipeSession(List.of(item(2L), item(3L)), List.of(), 0L));
+        synchronized (session) {
+            session.removeCard(2L);
+            session.history().addLast(passed(2L));
+        }
+        store.markDirty(1L, session);
+        // Another node swiped card 3 and fetched card 4 meanwhile.
+        when(repository.upsertAllIfVersionMatches(anyList()))
+                .thenReturn(new boolean[] {false})
+                .thenReturn(new boolean[] {true});
+        when(repository.findById(1L)).thenReturn(Optional.of(stored(1L, 1L, List.of(item(4L)), List.of(passed(3L)))));
+
+        store.flush();
+
+        assertSame(session, store.get(1L, id -> { throw new AssertionError("local copy should be kept"); }));
+        assertEquals(List.of(4L), ids(session.queue().view()));
+        assertEquals(List.of(3L, 2L), session.history().stream().map(entry -> entry.item().profile().telegramId()).toList());
+        assertEquals(1L, session.persistedVersion());
+
+        store.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SwipeSessionEntity>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).upsertAllIfVersionMatches(rows.capture());
+        assertEquals(2L, rows.getValue().get(0).getVersion());
+        assertEquals(2L, session.persistedVersion());
+    }
+
+    @Test
+    void versionsHandedOutByAnotherNodeAreNotServedAsDeltas() throws Exception {
+        SwipeSessionEntity row = stored(1L, 1L, List.of(item(2L), item(3L)), List.of());
+        row.setQueueVersion(7L);
+        SwipeSessionRepository otherRepository = mock(SwipeSessionRepository.class);
+        when(repository.findById(1L)).thenReturn(Optional.of(row));
+        when(otherRepository.findById(1L)).thenReturn(Optional.of(row));
+        SwipeSession here = store.get(1L, id -> { throw new AssertionError("should load persisted session"); });
+        SwipeSession there = new SwipeSessionStore(otherRepository, objectMapper, 100, 60_000, 0)
+                .get(1L, id -> { throw new AssertionError("should load persisted session"); });
+
+        // Both nodes reach version 8, but with different queues.
+        synchronized (here) {
+            here.removeCard(2L);
+        }
+        synchronized (there) {
+            there.removeCard(3L);
+        }
+
+        assertEquals(here.queueVersion(), there.queueVersion());
+        assertNotEquals(here.queueEpoch(), there.queueEpoch());
+        assertNull(here.opsSince(there.queueEpoch(), 7L));
+        assertEquals(1, here.opsSince(here.queueEpoch(), 7L).size());
+    }
+
+    @Test
+    void cachedSessionCatchesUpWithNewerStoredVersion() throws Exception {
+        SwipeSession session = store.get(1L, id -> new SwipeSession(List.of(item(2L), item(3L)), List.of(), 0L));
+        when(repository.findVersion(1L)).thenReturn(Optional.of(1L));
+        when(repository.findById(1L)).thenReturn(Optional.of(stored(1L, 1L, List.of(item(3L)), List.of(passed(2L)))));
+
+        SwipeSession current = store.get(1L, id -> { throw new AssertionError("local copy should be kept"); });
+
+        assertSame(session, current);
+        assertEquals(List.of(3L), ids(current.queue().view()));
+        assertEquals(1L, current.persistedVersion());
+    }
+
+    @Test
+    void cacheHitsWithinTheCheckIntervalDoNotProbeTheVersion() {
+        SwipeSessionStore throttled = new SwipeSessionStore(repository, objectMapper, 100, 60_000, 60_000);
+        SwipeSession session = throttled.get(1L, id -> new SwipeSession(List.of(item(2L)), List.of(), 0L));
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(session, throttled.get(1L, id -> { throw new AssertionError("local copy should be kept"); }));
+        }
+
+        verify(repository, never()).findVersion(1L);
+    }
+
+    @Test
+    void cleanSessionsAreNotWritten() {
+        SwipeSession session = store.get(1L, id -> new SwipeSession(List.of(), List.of(), 0L));
+
+        store.flush();
+
+        verify(repository, never()).upsertAllIfVersionMatches(anyList());
+        assertSame(session, store.get(1L, id -> new SwipeSession(List.of(), List.of(), 0L)));
+    }
+
+    private SwipeSessionEntity stored(Long telegramId, long version, List<SwipeQueueItem> queue,
+                                      List<SwipeHistoryEntry> history) throws Exception {
+        return SwipeSessionEntity.builder()
+                .telegramId(telegramId)
+                .queue(objectMapper.writeValueAsString(queue))
+                .history(objectMapper.writeValueAsString(history))
+                .version(version)
+                .build();
+    }
+
+    private static List<Long> ids(List<SwipeQueueItem> items) {
+        return items.stream().map(item -> item.profile().telegramId()).toList();
+    }
+
+    private static SwipeHistoryEntry passed(Long telegramId) {
+        return new SwipeHistoryEntry(item(telegramId), SwipeDirection.DISLIKE);
+    }
+
+    private static SwipeQueueItem item(Long telegramId) {
+        return new SwipeQueueItem(
+                new ProfileResponse(telegramId, "name", "bio", List.of("music"), null,
+                        new ProfileLocation("Moscow", null, null), Instant.parse("2025-01-01T00:00:00Z")),
+                1.5);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.dating.backend.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ChatMessagePersisterTest {
+
+    @TempDir
+    Path dir;
+
+    private ChatIdAllocator idAllocator;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Long> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        idAllocator = mock(ChatIdAllocator.class);
+        AtomicLong ids = new AtomicLong();
+        when(idAllocator.nextId()).thenAnswer(invocation -> ids.incrementAndGet());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void rejectedMessageIsDeadLetteredAndTheRestOfTheBatchCommits() throws Exception {
+        ChatMessagePersister persister = persister(rejectingMatch(99L));
+        List<Long> durable = new ArrayList<>();
+
+        ChatMessage first = persister.submit(message(5L));
+        ChatMessage poison = persister.submit(message(99L));
+        ChatMessage last = persister.submit(message(5L));
+        persister.whenDurable(first, () -> durable.add(first.getId()));
+        persister.whenDurable(poison, () -> durable.add(poison.getId()));
+        persister.flush();
+
+        assertThat(written).containsExactlyInAnyOrder(first.getId(), last.getId());
+        assertEquals(List.of(first.getId()), durable);
+        assertTrue(persister.pending(5L).isEmpty());
+        assertTrue(persister.pending(99L).isEmpty());
+        assertEquals(1.0, meterRegistry.counter("chat.persistence.dead_letters").count());
+        persister.close();
+    }
+
+    @Test
+    void replaySkipsRejectedRecords() throws Exception {
+        JdbcTemplate unavailable = mock(JdbcTemplate.class);
+        when(unavailable.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        ChatMessagePersister crashed = persister(unavailable);
+        crashed.submit(message(5L));
+        crashed.submit(message(99L));
+        crashed.close();
+
+        ChatMessagePersister restarted = persister(rejectingMatch(99L));
+        restarted.replay();
+
+        assertEquals(List.of(1L), written);
+        assertEquals(1.0, meterRegistry.counter("chat.persistence.dead_letters").count());
+        restarted.close();
+    }
+
+    private JdbcTemplate rejectingMatch(long matchId) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            Collection<ChatMessage> batch = invocation.getArgument(1);
+            if (batch.stream().anyMatch(message -> message.getMatchId() == matchId)) {
+                throw new DataIntegrityViolationException("fk_chat_messages_match");
+            }
+            batch.forEach(message -> written.add(message.getId()));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        return jdbcTemplate;
+    }
+
+    private ChatMessagePersister persister(JdbcTemplate jdbcTemplate) {
+        return new ChatMessagePersister(jdbcTemplate, idAllocator, meterRegistry, "async", 100,
+                dir.resolve("chat-wal.log").toString(), 1 << 20, false);
+    }
+
+    private static ChatMessage message(long matchId) {
+        return ChatMessage.builder()
+                .matchId(matchId).fromUserId(7L).body("hi").createdAt(OffsetDateTime.now())
+                .build();
+    }
+}
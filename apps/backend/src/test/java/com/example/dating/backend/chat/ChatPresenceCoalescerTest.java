@@ -0,0 +1,96 @@
+package com.example.dating.backend.chat;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ChatPresenceCoalescerTest {
+
+    private ChatFanout fanout;
+    private JdbcTemplate jdbcTemplate;
+    private ChatService chatService;
+    private ChatPresenceCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        ChatMembershipResolver resolver = mock(ChatMembershipResolver.class);
+        when(resolver.userId(100L)).thenReturn(1L);
+        when(resolver.userId(300L)).thenReturn(3L);
+        when(resolver.isMember(5L, 1L)).thenReturn(true);
+        fanout = mock(ChatFanout.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        chatService = mock(ChatService.class);
+        for (long id = 40; id <= 42; id++) {
+            when(chatService.createdAtOf(5L, id)).thenReturn(Instant.ofEpochSecond(1_000 + id));
+        }
+        coalescer = new ChatPresenceCoalescer(resolver, fanout, jdbcTemplate, chatService);
+    }
+
+    @Test
+    void publishesOnlyLatestStatePerInterval() {
+        coalescer.typing(5L, 100L, true);
+        coalescer.typing(5L, 100L, true);
+        coalescer.typing(5L, 100L, false);
+        coalescer.read(5L, 100L, 40L);
+        coalescer.read(5L, 100L, 42L);
+        coalescer.read(5L, 100L, 41L);
+
+        coalescer.publish();
+        coalescer.publish();
+
+        verify(fanout, times(1)).publish(eq(5L), argThat((ChatEvent e) -> e.type().equals("typing") && !e.typing()));
+        verify(fanout, times(1)).publish(eq(5L), argThat((ChatEvent e) -> e.type().equals("read") && e.lastReadMessageId() == 42L));
+        verify(fanout, times(2)).publish(eq(5L), any(ChatEvent.class));
+    }
+
+    @Test
+    void readCursorFollowsChatOrderNotIdOrder() {
+        // Id 900 came from another node's id block but was sent before message 43.
+        when(chatService.createdAtOf(5L, 43L)).thenReturn(Instant.ofEpochSecond(2_000));
+        when(chatService.createdAtOf(5L, 900L)).thenReturn(Instant.ofEpochSecond(1_900));
+
+        coalescer.read(5L, 100L, 43L);
+        coalescer.read(5L, 100L, 900L);
+        coalescer.publish();
+
+        verify(fanout, times(1)).publish(eq(5L), argThat((ChatEvent e) -> e.type().equals("read") && e.lastReadMessageId() == 43L));
+        verify(fanout, times(1)).publish(eq(5L), any(ChatEvent.class));
+    }
+
+    @Test
+    void readOfAMessageOutsideTheMatchIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> coalescer.read(5L, 100L, Long.MAX_VALUE));
+
+        coalescer.publish();
+        coalescer.persistCursors();
+        verify(fanout, never()).publish(eq(5L), any(ChatEvent.class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void cursorsAreWrittenLazilyAndNonMembersAreRejected() {
+        coalescer.persistCursors();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        coalescer.read(5L, 100L, 42L);
+        coalescer.persistCursors();
+        coalescer.persistCursors();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+
+        assertThrows(IllegalStateException.class, () -> coalescer.typing(5L, 300L, true));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.dating.backend.chat;
+
+import com.example.dating.backend.match.Match;
+import com.example.dating.backend.match.MatchRepository;
+import com.example.dating.backend.user.User;
+import com.example.dating.backend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.dating.backend.support.PostgisIntegrationTest;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "chat.persistence.mode=async",
+        "chat.persistence.flush-interval-ms=600000",
+        "chat.persistence.wal-path=target/chat-wal-${random.uuid}.log"
+})
+class ChatServiceAsyncTest extends PostgisIntegrationTest {
+    @Autowired ChatService chatService;
+    @Autowired ChatMessagePersister persister;
+    @Autowired UserRepository userRepository;
+    @Autowired MatchRepository matchRepository;
+
+    @Test
+    void unflushedMessagesAreInTheFirstHistoryLoad() {
+        User u1 = userRepository.save(User.builder().telegramId(31L).username("a").createdAt(OffsetDateTime.now()).build());
+        User u2 = userRepository.save(User.builder().telegramId(32L).username("b").createdAt(OffsetDateTime.now()).build());
+        Match match = matchRepository.save(Match.builder().user1Id(u1.getId()).user2Id(u2.getId()).createdAt(OffsetDateTime.now()).build());
+
+        chatService.sendMessage(match.getId(), u1.getTelegramId(), "m0");
+        chatService.sendMessage(match.getId(), u2.getTelegramId(), "m1");
+        assertEquals(2, persister.pending(match.getId()).size());
+
+        ChatHistoryPage page = chatService.getHistoryPage(match.getId(), null, 10);
+        assertEquals(List.of("m1", "m0"), page.items().stream().map(ChatMessageView::body).toList());
+
+        persister.flush();
+        assertTrue(persister.pending(match.getId()).isEmpty());
+        assertEquals(List.of("m1", "m0"),
+                chatService.getHistoryPage(match.getId(), null, 10).items().stream().map(ChatMessageView::body).toList());
+    }
+}
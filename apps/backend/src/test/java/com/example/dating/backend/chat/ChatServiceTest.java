@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.example.dating.backend.support.PostgisIntegrationTest;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +29,34 @@ class ChatServiceTest extends PostgisIntegrationTest {
         User u2 = userRepository.save(User.builder().telegramId(2L).username("b").createdAt(OffsetDateTime.now()).build());
         Match match = matchRepository.save(Match.builder().user1Id(u1.getId()).user2Id(u2.getId()).createdAt(OffsetDateTime.now()).build());
         chatService.sendMessage(match.getId(), u1.getTelegramId(), "hi");
-        assertEquals(1, chatService.getHistory(match.getId()).size());
+        assertEquals(List.of("hi"), chatService.getHistoryPage(match.getId(), null, null).items().stream()
+                .map(ChatMessageView::body).toList());
+    }
+
+    @Test
+    void historyPagesNewestFirst() {
+        User u1 = userRepository.save(User.builder().telegramId(11L).username("a").createdAt(OffsetDateTime.now()).build());
+        User u2 = userRepository.save(User.builder().telegramId(12L).username("b").createdAt(OffsetDateTime.now()).build());
+        Match match = matchRepository.save(Match.builder().user1Id(u1.getId()).user2Id(u2.getId()).createdAt(OffsetDateTime.now()).build());
+        for (int i = 0; i < 5; i++) {
+            chatService.sendMessage(match.getId(), u1.getTelegramId(), "m" + i);
+        }
+
+        ChatHistoryPage first = chatService.getHistoryPage(match.getId(), null, 3);
+        assertEquals(List.of("m4", "m3", "m2"), first.items().stream().map(ChatMessageView::body).toList());
+
+        ChatHistoryPage second = chatService.getHistoryPage(match.getId(), first.nextBefore(), 3);
+        assertEquals(List.of("m1", "m0"), second.items().stream().map(ChatMessageView::body).toList());
+        assertNull(second.nextBefore());
+    }
+
+    @Test
+    void nonMemberCannotSend() {
+        User u1 = userRepository.save(User.builder().telegramId(21L).username("a").createdAt(OffsetDateTime.now()).build());
+        User u2 = userRepository.save(User.builder().telegramId(22L).username("b").createdAt(OffsetDateTime.now()).build());
+        userRepository.save(User.builder().telegramId(23L).username("c").createdAt(OffsetDateTime.now()).build());
+        Match match = matchRepository.save(Match.builder().user1Id(u1.getId()).user2Id(u2.getId()).createdAt(OffsetDateTime.now()).build());
+
+        assertThrows(IllegalStateException.class, () -> chatService.sendMessage(match.getId(), 23L, "hi"));
     }
 }
@@ -0,0 +1,44 @@
+package com.example.dating.backend.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ChatTailTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void servesPagesInsideTheTailAndDefersOlderOnesToTheDatabase() {
+        ChatTail tail = new ChatTail(3, List.of(message(2), message(1)), true);
+        tail.append(message(3));
+        tail.append(message(4));
+
+        assertEquals(List.of(4L, 3L), ids(tail.page(null, 2)));
+        assertEquals(List.of(2L), ids(tail.page(3L, 1)));
+        assertNull(tail.page(2L, 1));
+        assertNull(tail.page(99L, 1));
+    }
+
+    @Test
+    void completeTailAnswersShortPagesAndKeepsOrderForLateAppends() {
+        ChatTail tail = new ChatTail(5, List.of(message(3), message(1)), true);
+        tail.append(message(2));
+        tail.append(message(3));
+
+        assertEquals(List.of(3L, 2L, 1L), ids(tail.page(null, 5)));
+        assertEquals(List.of(), ids(tail.page(1L, 5)));
+    }
+
+    private static ChatMessageView message(long id) {
+        return new ChatMessageView(id, 1L, "m" + id, T0.plusSeconds(id));
+    }
+
+    private static List<Long> ids(List<ChatMessageView> page) {
+        return page.stream().map(ChatMessageView::id).toList();
+    }
+}
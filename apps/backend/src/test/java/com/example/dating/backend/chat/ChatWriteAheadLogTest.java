@@ -0,0 +1,67 @@
+package com.example.dating.backend.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChatWriteAheadLogTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 123_000, ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysOnlyRecordsAfterTheCheckpoint() throws Exception {
+        Path file = dir.resolve("chat.wal");
+        try (ChatWriteAheadLog wal = ChatWriteAheadLog.open(file, 4096, false)) {
+            int first = wal.append(message(1, "привет"));
+            wal.append(message(2, "second"));
+            wal.checkpoint(first);
+        }
+
+        try (ChatWriteAheadLog wal = ChatWriteAheadLog.open(file, 4096, false)) {
+            List<ChatMessage> pending = wal.pending();
+            assertEquals(1, pending.size());
+            assertEquals(2L, pending.get(0).getId());
+            assertEquals("second", pending.get(0).getBody());
+            assertEquals(T0.toInstant(), pending.get(0).getCreatedAt().toInstant());
+
+            wal.append(message(3, "third"));
+            assertEquals(List.of(2L, 3L), wal.pending().stream().map(ChatMessage::getId).toList());
+        }
+    }
+
+    @Test
+    void stopsAtTornRecordAndReportsFullLog() throws Exception {
+        Path file = dir.resolve("chat.wal");
+        int secondEnd;
+        try (ChatWriteAheadLog wal = ChatWriteAheadLog.open(file, 256, false)) {
+            wal.append(message(1, "ok"));
+            secondEnd = wal.append(message(2, "torn"));
+            assertEquals(-1, wal.append(message(3, "x".repeat(300))));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(secondEnd - 1);
+            raw.write('!');
+        }
+
+        try (ChatWriteAheadLog wal = ChatWriteAheadLog.open(file, 256, false)) {
+            List<ChatMessage> pending = wal.pending();
+            assertEquals(List.of(1L), pending.stream().map(ChatMessage::getId).toList());
+            assertTrue(wal.append(message(4, "next")) > 0);
+        }
+    }
+
+    private static ChatMessage message(long id, String body) {
+        return ChatMessage.builder().id(id).matchId(7L).fromUserId(9L).body(body).createdAt(T0).build();
+    }
+}
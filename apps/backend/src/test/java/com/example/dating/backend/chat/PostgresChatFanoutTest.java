@@ -0,0 +1,115 @@
+package com.example.dating.backend.chat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.example.dating.backend.support.PostgisIntegrationTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "chat.broker.mode=postgres")
+class PostgresChatFanoutTest extends PostgisIntegrationTest {
+
+    @Autowired
+    ChatFanout chatFanout;
+
+    @Autowired
+    ChatMessageRepository chatRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ChatService chatService;
+
+    @SpyBean
+    SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void senderDeliversLocallyAndSkipsItsOwnNotification() {
+        assertInstanceOf(PostgresChatFanout.class, chatFanout);
+        ChatMessage message = ChatMessage.builder()
+                .id(1L).matchId(5L).fromUserId(7L).body("hi").createdAt(OffsetDateTime.now())
+                .build();
+
+        chatFanout.publish(message);
+
+        verify(messagingTemplate, after(1_000).times(1)).convertAndSend(eq("/topic/chat/5"), any(Object.class));
+    }
+
+    @Test
+    void oversizedMessageIsDeliveredWhole() {
+        ChatMessage message = chatRepository.save(ChatMessage.builder()
+                .matchId(6L).fromUserId(7L).body("x".repeat(8_000)).createdAt(OffsetDateTime.now())
+                .build());
+
+        chatFanout.publish(message);
+
+        verify(messagingTemplate, after(1_000).times(1)).convertAndSend(eq("/topic/chat/6"),
+                argThat((Object payload) -> payload instanceof ChatMessage delivered
+                        && delivered.getBody().length() == 8_000));
+    }
+
+    @Test
+    void oversizedMessageFromAnotherNodeIsLoadedById() throws Exception {
+        ChatMessage message = chatRepository.save(ChatMessage.builder()
+                .matchId(8L).fromUserId(7L).body("y".repeat(8_000)).createdAt(OffsetDateTime.now())
+                .build());
+        String payload = objectMapper.writeValueAsString(
+                new PostgresChatFanout.Envelope("other-node", 8L, message.getId(), null, null));
+
+        // The listener connects asynchronously; notifications sent before LISTEN are not queued.
+        for (int attempt = 0; attempt < 10; attempt++) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, PostgresChatFanout.CHANNEL, payload);
+            Thread.sleep(200);
+        }
+
+        verify(messagingTemplate, timeout(5_000).atLeastOnce()).convertAndSend(eq("/topic/chat/8"),
+                argThat((Object delivered) -> delivered instanceof ChatMessage loaded
+                        && loaded.getBody().length() == 8_000));
+    }
+
+    @Test
+    void messageFromAnotherNodeReachesTheCachedTail() throws Exception {
+        String ping = objectMapper.writeValueAsString(new PostgresChatFanout.Envelope(
+                "other-node", 9L, null, null, ChatEvent.typing(7L, true, Instant.now())));
+        // Wait until the listener is up; it drops cached tails when it connects.
+        for (int attempt = 0; attempt < 10; attempt++) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, PostgresChatFanout.CHANNEL, ping);
+            Thread.sleep(200);
+        }
+        verify(messagingTemplate, timeout(5_000).atLeastOnce()).convertAndSend(eq("/topic/chat/9"), any(Object.class));
+        assertEquals(List.of(), chatService.getHistoryPage(9L, null, 10).items());
+
+        ChatMessage remote = ChatMessage.builder()
+                .id(900_001L).matchId(9L).fromUserId(7L).body("from b").createdAt(OffsetDateTime.now())
+                .build();
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, PostgresChatFanout.CHANNEL,
+                objectMapper.writeValueAsString(new PostgresChatFanout.Envelope("other-node", 9L, 900_001L, remote, null)));
+        verify(messagingTemplate, timeout(5_000)).convertAndSend(eq("/topic/chat/9"),
+                argThat((Object delivered) -> delivered instanceof ChatMessage message && message.getId() == 900_001L));
+
+        assertEquals(List.of("from b"),
+                chatService.getHistoryPage(9L, null, 10).items().stream().map(ChatMessageView::body).toList());
+    }
+}
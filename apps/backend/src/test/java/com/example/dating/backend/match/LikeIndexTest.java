@@ -0,0 +1,29 @@
+package com.example.dating.backend.match;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class LikeIndexTest {
+
+    @Test
+    void notificationsAddAndRemoveLikesInOrder() {
+        LikeIndex index = new LikeIndex(mock(DataSource.class), mock(JdbcTemplate.class), true);
+
+        index.apply("+1:9,+2:9,+3:9");
+        index.apply("-2:9,+2:9,-3:9");
+
+        assertTrue(index.hasLiked(1L, 9L));
+        assertTrue(index.hasLiked(2L, 9L));
+        assertFalse(index.hasLiked(3L, 9L));
+        assertFalse(index.hasLiked(9L, 1L));
+        assertEquals(2, index.likedByCount(9L));
+        assertFalse(index.isReady());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.dating.backend.match;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class LikeIngestorTest {
+
+    private LikeRecorder recorder;
+    private LikeRepository likeRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Long> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        recorder = mock(LikeRecorder.class);
+        likeRepository = mock(LikeRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(recorder.record(anyLong(), anyLong())).thenReturn(new LikeRecorder.LikeOutcome(true, false, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rejectedLikeIsDeadLetteredAndTheRestOfTheBatchIsWritten() {
+        LikeIngestor ingestor = ingestor(10);
+        doAnswer(invocation -> {
+            long[] from = invocation.getArgument(0);
+            if (Arrays.stream(from).anyMatch(id -> id == 99L)) {
+                throw new DataIntegrityViolationException("fk_likes_from");
+            }
+            Arrays.stream(from).forEach(written::add);
+            return null;
+        }).when(likeRepository).insertBatch(any(), any());
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(99L, 51L);
+        ingestor.submit(2L, 52L);
+        ingestor.submit(3L, 53L);
+        ingestor.flush();
+
+        assertEquals(0, ingestor.pending());
+        assertThat(written).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertEquals(1.0, meterRegistry.counter("likes.ingest.dead_letters").count());
+    }
+
+    @Test
+    void unavailableDatabaseKeepsTheBatchForTheNextFlush() {
+        LikeIngestor ingestor = ingestor(10);
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        }).doAnswer(invocation -> null).when(likeRepository).insertBatch(any(), any());
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(2L, 51L);
+        ingestor.flush();
+        assertEquals(2, ingestor.pending());
+
+        ingestor.flush();
+        assertEquals(0, ingestor.pending());
+        assertEquals(0.0, meterRegistry.counter("likes.ingest.dead_letters").count());
+    }
+
+    @Test
+    void reciprocalLikeWhileFirstTransactionIsOpenIsNotQueued() {
+        LikeIngestor ingestor = ingestor(1);
+        ingestor.submit(7L, 8L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        // Queue is full, so this like is written in the caller's still open transaction.
+        ingestor.submit(1L, 2L);
+        List<TransactionSynchronization> callbacks = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        ingestor.submit(2L, 1L);
+
+        verify(recorder).record(1L, 2L);
+        verify(recorder).record(2L, 1L);
+        assertEquals(1, ingestor.pending());
+
+        callbacks.forEach(callback -> callback.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        ingestor.flush();
+
+        // Once committed, the bit is only known to the database (mocked empty here) and leaves the overlay.
+        ingestor.submit(2L, 1L);
+        assertEquals(1, ingestor.pending());
+        verify(recorder, times(1)).record(2L, 1L);
+    }
+
+    @Test
+    void failedSynchronousLikeLeavesTheOverlay() {
+        LikeIngestor ingestor = ingestor(1);
+        ingestor.submit(7L, 8L);
+        when(recorder.record(1L, 2L)).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> ingestor.submit(1L, 2L));
+        ingestor.flush();
+
+        // The failed like never reached the database, so the reciprocal one is an ordinary queued like.
+        ingestor.submit(2L, 1L);
+        assertEquals(1, ingestor.pending());
+        verify(recorder, never()).record(2L, 1L);
+    }
+
+    private LikeIngestor ingestor(int queueCapacity) {
+        LikePairRepository pairRepository = mock(LikePairRepository.class);
+        when(pairRepository.findMask(anyLong(), anyLong())).thenReturn(Optional.empty());
+        return new LikeIngestor(recorder, likeRepository, pairRepository, mock(LikeIndex.class), meterRegistry,
+                "batched", queueCapacity, 100);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.dating.backend.match;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+    @Test
+    void matchesReferenceModelUnderRandomOperations() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> reference = new HashSet<>();
+
+        for (int step = 0; step < 50_000; step++) {
+            long value = random.nextInt(2_000) * 4096L - 1_000_000L;
+            if (random.nextInt(3) > 0) {
+                assertEquals(reference.add(value), set.add(value));
+            } else {
+                assertEquals(reference.remove(value), set.remove(value));
+            }
+            assertEquals(reference.size(), set.size());
+        }
+
+        for (long value : reference) {
+            assertTrue(set.contains(value));
+        }
+        assertFalse(set.contains(Long.MAX_VALUE));
+    }
+}
@@ -1,15 +1,20 @@
 package com.example.dating.backend.match;
 
+import com.example.dating.backend.chat.ChatMessage;
+import com.example.dating.backend.chat.ChatMessageRepository;
 import com.example.dating.backend.user.User;
 import com.example.dating.backend.user.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.dating.backend.support.PostgisIntegrationTest;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +26,12 @@ class MatchServiceTest extends PostgisIntegrationTest {
     MatchService matchService;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    MatchRepository matchRepository;
+    @Autowired
+    ChatMessageRepository chatMessageRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     @Test
     void reciprocalLikesCreateMatch() {
@@ -31,4 +42,81 @@ class MatchServiceTest extends PostgisIntegrationTest {
         assertTrue(matchService.like(2L, u1.getId()));
         assertEquals(1, matchService.getMatches(1L).size());
     }
+
+    @Test
+    void inboxRowCarriesLastMessageAndCappedUnreadCount() {
+        User me = user(3000L);
+        User partner = user(3001L);
+        User quiet = user(3002L);
+        long chatty = match(me, partner);
+        long silent = match(me, quiet);
+        OffsetDateTime t = OffsetDateTime.now().minusHours(1);
+        ChatMessage read = message(chatty, partner, "one", t.plusSeconds(1));
+        message(chatty, partner, "two", t.plusSeconds(2));
+        message(chatty, partner, "three", t.plusSeconds(3));
+        ChatMessage last = message(chatty, me, "mine", t.plusSeconds(4));
+        // Highest id but sent before the read message: neither unread nor the last message.
+        message(chatty, partner, "late id", t);
+        jdbcTemplate.update("INSERT INTO chat_read_cursors (match_id, user_id, last_read_message_id, "
+                + "last_read_created_at, updated_at) VALUES (?, ?, ?, ?, now())",
+                chatty, me.getId(), read.getId(), read.getCreatedAt());
+
+        List<MatchInboxRow> rows = inbox(me, 99);
+        MatchInboxRow chattyRow = row(rows, chatty);
+        MatchInboxRow silentRow = row(rows, silent);
+
+        assertEquals(last.getId(), chattyRow.getLastMessageId());
+        assertEquals("mine", chattyRow.getLastMessageBody());
+        assertEquals(2, chattyRow.getUnreadCount());
+        assertEquals(partner.getTelegramId(), chattyRow.getPartnerTelegramId());
+        assertNull(silentRow.getLastMessageId());
+        assertEquals(0, silentRow.getUnreadCount());
+        assertEquals(1, row(inbox(me, 1), chatty).getUnreadCount());
+    }
+
+    @Test
+    void inboxPagesWalkMatchesNewestFirstWithoutGapsOrRepeats() {
+        User me = user(3100L);
+        List<Long> expected = new ArrayList<>();
+        for (long partner = 3101L; partner <= 3105L; partner++) {
+            expected.add(0, match(me, user(partner)));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        MatchInboxCursor cursor = null;
+        MatchInboxPage page;
+        do {
+            page = matchService.getInbox(me.getTelegramId(), cursor, 2);
+            page.items().forEach(item -> seen.add(item.matchId()));
+            cursor = MatchInboxCursor.decode(page.nextCursor());
+        } while (cursor != null);
+
+        // Matches made in one transaction share created_at, so the id has to break the tie.
+        assertEquals(expected, seen);
+    }
+
+    private User user(long telegramId) {
+        return userRepository.save(User.builder()
+                .telegramId(telegramId).username("u" + telegramId).createdAt(OffsetDateTime.now()).build());
+    }
+
+    private long match(User a, User b) {
+        matchService.like(a.getTelegramId(), b.getId());
+        assertTrue(matchService.like(b.getTelegramId(), a.getId()));
+        return matchRepository.findByUser1IdAndUser2Id(Math.min(a.getId(), b.getId()), Math.max(a.getId(), b.getId()))
+                .orElseThrow().getId();
+    }
+
+    private ChatMessage message(long matchId, User from, String body, OffsetDateTime createdAt) {
+        return chatMessageRepository.saveAndFlush(ChatMessage.builder()
+                .matchId(matchId).fromUserId(from.getId()).body(body).createdAt(createdAt).build());
+    }
+
+    private List<MatchInboxRow> inbox(User owner, int unreadCap) {
+        return matchRepository.findInboxPage(owner.getId(), OffsetDateTime.now().plusDays(1), Long.MAX_VALUE, 10, unreadCap);
+    }
+
+    private static MatchInboxRow row(List<MatchInboxRow> rows, long matchId) {
+        return rows.stream().filter(row -> row.getMatchId() == matchId).findFirst().orElseThrow();
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.dating.backend.profile;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.dating.backend.support.PostgisIntegrationTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: commit and rollback are what decide whether a label enters the mirror.
+@SpringBootTest
+class InterestDictionaryTest extends PostgisIntegrationTest {
+
+    @Autowired
+    InterestDictionary interestDictionary;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void existingLabelsResolveToTheirRowAndNewOnesAreCreated() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "INSERT INTO interests (label) VALUES ('dict-existing') RETURNING id", Integer.class);
+
+        int[] ids = transactionTemplate.execute(status ->
+                interestDictionary.idsOf(List.of("dict-new", "dict-existing", "dict-new")));
+
+        assertEquals(existing, ids[1]);
+        assertEquals(ids[0], ids[2]);
+        assertEquals(ids[0], idOf("dict-new"));
+        assertEquals(1, countOf("dict-existing"));
+        assertEquals(List.of("dict-new", "dict-existing"), interestDictionary.labelsOf(new int[] {ids[0], ids[1]}));
+    }
+
+    @Test
+    void labelCreatedInARolledBackTransactionNeverEntersTheMirror() {
+        int rolledBack = transactionTemplate.execute(status -> {
+            int id = interestDictionary.idsOf(List.of("dict-rolled-back"))[0];
+            status.setRollbackOnly();
+            return id;
+        });
+
+        assertEquals(0, countOf("dict-rolled-back"));
+        assertEquals(List.of(), interestDictionary.labelsOf(new int[] {rolledBack}));
+
+        int recreated = transactionTemplate.execute(status -> interestDictionary.idsOf(List.of("dict-rolled-back"))[0]);
+        assertNotEquals(rolledBack, recreated);
+        assertEquals(recreated, idOf("dict-rolled-back"));
+        assertArrayEquals(new int[] {recreated}, interestDictionary.idsOf(List.of("dict-rolled-back")));
+    }
+
+    private Integer idOf(String label) {
+        return jdbcTemplate.queryForObject("SELECT id FROM interests WHERE label = ?", Integer.class, label);
+    }
+
+    private int countOf(String label) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM interests WHERE label = ?", Integer.class, label);
+    }
+}
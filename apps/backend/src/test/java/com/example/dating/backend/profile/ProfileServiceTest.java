@@ -0,0 +1,103 @@
+package com.example.dating.backend.profile;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dating.backend.support.PostgisIntegrationTest;
+import com.example.dating.backend.user.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class ProfileServiceTest extends PostgisIntegrationTest {
+
+    @Autowired
+    ProfileService profileService;
+    @Autowired
+    ProfileInterestRepository interestRepository;
+    @Autowired
+    ProfileRepository profileRepository;
+    @Autowired
+    InterestDictionary interestDictionary;
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void interestsAreTrimmedAndDeduplicated() {
+        ProfileResponse response = profileService.upsertProfile(5100L, request(List.of("music", " travel ", "music", " ")));
+
+        assertEquals(List.of("music", "travel"), response.interests());
+        Long userId = userIdOf(5100L);
+        assertEquals(List.of("music", "travel"), storedValues(userId));
+        assertEquals(List.of("music", "travel"),
+                interestDictionary.labelsOf(profileRepository.findById(userId).orElseThrow().getInterestIds()));
+    }
+
+    @Test
+    void keptInterestsAreNotRewritten() {
+        profileService.upsertProfile(5101L, request(List.of("music", "travel", "art")));
+        Long userId = userIdOf(5101L);
+        Map<String, Long> before = rowIds(userId);
+
+        ProfileResponse response = profileService.upsertProfile(5101L, request(List.of("travel", "books")));
+
+        assertEquals(List.of("travel", "books"), response.interests());
+        Map<String, Long> after = rowIds(userId);
+        assertEquals(before.get("travel"), after.get("travel"));
+        assertEquals(List.of("books", "travel"), after.keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void duplicatedRowsCollapseToOne() {
+        profileService.upsertProfile(5102L, request(List.of()));
+        Long userId = userIdOf(5102L);
+        interestRepository.applyDiff(userId, List.of(), List.of("chess", "chess"));
+
+        profileService.upsertProfile(5102L, request(List.of("chess")));
+
+        assertEquals(List.of("chess"), storedValues(userId));
+    }
+
+    @Test
+    void emptyRequestRemovesEveryInterest() {
+        profileService.upsertProfile(5103L, request(List.of("music", "art")));
+        Long userId = userIdOf(5103L);
+
+        ProfileResponse response = profileService.upsertProfile(5103L, request(null));
+
+        assertTrue(response.interests().isEmpty());
+        assertTrue(storedValues(userId).isEmpty());
+        assertEquals(0, profileRepository.findById(userId).orElseThrow().getInterestIds().length);
+    }
+
+    private Long userIdOf(long telegramId) {
+        return userRepository.findByTelegramId(telegramId).orElseThrow().getId();
+    }
+
+    private List<String> storedValues(Long userId) {
+        return interestRepository.findByUserId(userId).stream()
+                .map(ProfileInterestEntity::getValue)
+                .sorted()
+                .toList();
+    }
+
+    private Map<String, Long> rowIds(Long userId) {
+        return interestRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(ProfileInterestEntity::getValue, ProfileInterestEntity::getId));
+    }
+
+    private static UpdateProfileRequest request(List<String> interests) {
+        return UpdateProfileRequest.builder()
+                .displayName("tester")
+                .bio("")
+                .interests(interests)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.dating.backend.swipe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class PassIngestorTest {
+
+    private SwipeEventRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Long> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SwipeEventRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void passesAreWrittenInOneBatch() {
+        PassIngestor ingestor = ingestor(10);
+        recordWrites();
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(2L, 51L);
+        verify(repository, never()).recordPass(any(), any());
+        ingestor.flush();
+
+        assertEquals(0, ingestor.pending());
+        assertThat(written).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void cancelledPassIsNeverWritten() {
+        PassIngestor ingestor = ingestor(10);
+        recordWrites();
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(2L, 51L);
+        ingestor.cancel(1L, 50L);
+        ingestor.flush();
+
+        assertThat(written).containsExactly(2L);
+    }
+
+    @Test
+    void rejectedPassIsDeadLetteredAndTheRestIsWritten() {
+        PassIngestor ingestor = ingestor(10);
+        doAnswer(invocation -> {
+            long[] from = invocation.getArgument(0);
+            if (Arrays.stream(from).anyMatch(id -> id == 99L)) {
+                throw new DataIntegrityViolationException("fk_swipe_events_from_user");
+            }
+            Arrays.stream(from).forEach(written::add);
+            return null;
+        }).when(repository).insertPasses(any(), any());
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(99L, 51L);
+        ingestor.submit(2L, 52L);
+        ingestor.flush();
+
+        assertEquals(0, ingestor.pending());
+        assertThat(written).containsExactly(1L, 2L);
+        assertEquals(1.0, meterRegistry.counter("passes.ingest.dead_letters").count());
+    }
+
+    @Test
+    void unavailableDatabaseKeepsTheBatchForTheNextFlush() {
+        PassIngestor ingestor = ingestor(10);
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        }).doAnswer(invocation -> null).when(repository).insertPasses(any(), any());
+
+        ingestor.submit(1L, 50L);
+        ingestor.flush();
+        assertEquals(1, ingestor.pending());
+
+        ingestor.flush();
+        assertEquals(0, ingestor.pending());
+    }
+
+    @Test
+    void fullQueueWritesDirectly() {
+        PassIngestor ingestor = ingestor(1);
+
+        ingestor.submit(1L, 50L);
+        ingestor.submit(2L, 51L);
+
+        verify(repository).recordPass(2L, 51L);
+        assertEquals(1, ingestor.pending());
+    }
+
+    private void recordWrites() {
+        doAnswer(invocation -> {
+            long[] from = invocation.getArgument(0);
+            Arrays.stream(from).forEach(written::add);
+            return null;
+        }).when(repository).insertPasses(any(), any());
+    }
+
+    private PassIngestor ingestor(int queueCapacity) {
+        return new PassIngestor(repository, meterRegistry, "batched", queueCapacity, 100);
+    }
+}
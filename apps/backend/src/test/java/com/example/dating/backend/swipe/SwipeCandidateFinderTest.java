@@ -0,0 +1,76 @@
+package com.example.dating.backend.swipe;
+
+import com.example.dating.backend.geo.GeoLocation;
+import com.example.dating.backend.geo.GeoLocationRepository;
+import com.example.dating.backend.profile.Profile;
+import com.example.dating.backend.profile.ProfileRepository;
+import com.example.dating.backend.user.User;
+import com.example.dating.backend.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dating.backend.support.PostgisIntegrationTest;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SwipeCandidateFinderTest extends PostgisIntegrationTest {
+
+    @Autowired
+    SwipeCandidateFinder candidateFinder;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ProfileRepository profileRepository;
+    @Autowired
+    GeoLocationRepository geoRepository;
+    @Autowired
+    GeometryFactory geometryFactory;
+
+    @Test
+    void cursorPagesWalkOutwardWithoutGapsOrRepeats() {
+        User viewer = user(4100L, 0d);
+        List<Long> expected = new ArrayList<>();
+        // Two candidates share a distance, so the user id has to break the tie across pages.
+        expected.add(user(4101L, 0.01).getId());
+        expected.add(user(4102L, 0.02).getId());
+        expected.add(user(4103L, 0.02).getId());
+        expected.add(user(4104L, 0.30).getId());
+        expected.add(user(4105L, 5.00).getId());
+        GeoLocation viewerGeo = geoRepository.findById(viewer.getId()).orElseThrow();
+
+        List<Long> seen = new ArrayList<>();
+        SwipeFeedCursor cursor = null;
+        List<FeedCandidate> page;
+        do {
+            page = candidateFinder.find(viewer.getId(), viewerGeo, cursor, 2);
+            page.forEach(candidate -> seen.add(candidate.userId()));
+            cursor = page.isEmpty() ? null : page.get(page.size() - 1).toCursor();
+        } while (page.size() == 2);
+
+        assertEquals(expected, seen);
+    }
+
+    private User user(long telegramId, double latitude) {
+        User user = userRepository.save(User.builder()
+                .telegramId(telegramId).username("u" + telegramId).createdAt(OffsetDateTime.now()).build());
+        profileRepository.save(Profile.builder().user(user).userId(user.getId()).bio("").isVip(false).build());
+        geoRepository.saveAndFlush(GeoLocation.builder()
+                .user(user)
+                .userId(user.getId())
+                .point(geometryFactory.createPoint(new Coordinate(0d, latitude)))
+                .updatedAt(Instant.now())
+                .build());
+        return user;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.dating.backend.swipe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SwipeDeckTest {
+
+    @Test
+    void consumingHeadAndMiddleKeepsDistanceOrder() {
+        SwipeDeck deck = new SwipeDeck(4, 0L);
+        deck.reset(List.of(candidate(1, 10), candidate(2, 20), candidate(3, 30)), false, 0L);
+
+        deck.remove(1L);
+        deck.remove(3L);
+        deck.appendIfUnchanged(deck.generation(), List.of(candidate(4, 40), candidate(5, 50)), true);
+
+        assertThat(deck.peek(10))
+                .extracting(FeedCandidate::userId)
+                .containsExactly(2L, 4L, 5L);
+        assertEquals(new SwipeFeedCursor(50d, 5L), deck.tail());
+        assertTrue(deck.exhausted());
+    }
+
+    @Test
+    void onlyOneRefillClaimsTheDeck() {
+        SwipeDeck deck = new SwipeDeck(4, 0L);
+
+        assertTrue(deck.tryStartRefill());
+        assertFalse(deck.tryStartRefill());
+        deck.finishRefill();
+        assertTrue(deck.tryStartRefill());
+    }
+
+    @Test
+    void batchLoadedBeforeConsumeIsKept() {
+        SwipeDeck deck = new SwipeDeck(4, 0L);
+        deck.reset(List.of(candidate(1, 10)), false, 0L);
+        long generation = deck.generation();
+
+        deck.remove(1L);
+
+        assertTrue(deck.appendIfUnchanged(generation, List.of(candidate(2, 20), candidate(3, 30)), false));
+        assertThat(deck.peek(10)).extracting(FeedCandidate::userId).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void batchLoadedBeforeResetIsDropped() {
+        SwipeDeck deck = new SwipeDeck(4, 0L);
+        deck.reset(List.of(candidate(1, 10)), false, 0L);
+        long generation = deck.generation();
+
+        deck.reset(List.of(candidate(5, 5)), false, 0L);
+
+        assertFalse(deck.appendIfUnchanged(generation, List.of(candidate(2, 20)), false));
+        assertEquals(1, deck.size());
+    }
+
+    @Test
+    void checkedPrefixShrinksWithConsumedCardsAndClearsOnReset() {
+        SwipeDeck deck = new SwipeDeck(4, 0L);
+        deck.reset(List.of(candidate(1, 10), candidate(2, 20), candidate(3, 30)), false, 0L);
+
+        SwipeDeck.Page page = deck.page(2);
+        assertEquals(0, page.verified());
+        deck.markVerified(page.generation(), 2L);
+
+        deck.remove(1L);
+        assertEquals(1, deck.page(2).verified());
+
+        SwipeDeck.Page stale = deck.page(2);
+        deck.remove(3L);
+        deck.markVerified(stale.generation(), 3L);
+        assertEquals(1, deck.page(2).verified());
+
+        deck.reset(List.of(candidate(4, 40)), true, 0L);
+        assertEquals(0, deck.page(2).verified());
+    }
+
+    @Test
+    void candidatesWithoutLocationRoundTrip() {
+        SwipeDeck deck = new SwipeDeck(2, 0L);
+        deck.reset(List.of(new FeedCandidate(7L, null, null)), true, 0L);
+
+        FeedCandidate restored = deck.peek(1).get(0);
+        assertEquals(new FeedCandidate(7L, null, null), restored);
+    }
+
+    private static FeedCandidate candidate(long userId, double distance) {
+        return new FeedCandidate(userId, distance, Instant.ofEpochMilli(1_000L * userId));
+    }
+}
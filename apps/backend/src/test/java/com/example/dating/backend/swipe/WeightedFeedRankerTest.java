@@ -0,0 +1,73 @@
+package com.example.dating.backend.swipe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class WeightedFeedRankerTest {
+
+    private static final long NOW = 1_000_000_000L;
+
+    private final WeightedFeedRanker ranker = new WeightedFeedRanker(1.0, 5000, 1.0, 0.5, 72, 0.2);
+
+    @Test
+    void interestOverlapIsJaccardOverUnsortedDuplicatedIds() {
+        RankingBatch batch = new RankingBatch();
+        batch.reset(2, NOW);
+        batch.setViewerInterests(new int[] {2_000_000_000, 70, 1, 70});
+        batch.setCandidate(0, null, RankingBatch.NO_TIMESTAMP, false, new int[] {70, 5, 2_000_000_000, 1, 1});
+        batch.setCandidate(1, null, RankingBatch.NO_TIMESTAMP, false, new int[] {});
+
+        assertEquals(0.75, batch.interestOverlap(0), 1e-9);
+        assertEquals(0.0, batch.interestOverlap(1), 1e-9);
+    }
+
+    @Test
+    void sharedInterestsOutrankSlightlyCloserStranger() {
+        RankingBatch batch = new RankingBatch();
+        batch.reset(3, NOW);
+        batch.setViewerInterests(new int[] {1, 2, 3});
+        batch.setCandidate(0, 1000d, NOW, false, new int[] {9});
+        batch.setCandidate(1, 1200d, NOW, false, new int[] {1, 2, 3});
+        batch.setCandidate(2, 1100d, NOW, true, new int[] {9});
+
+        assertThat(rank(batch)).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void equalScoresKeepDistanceOrder() {
+        RankingBatch batch = new RankingBatch();
+        batch.reset(3, NOW);
+        for (int i = 0; i < 3; i++) {
+            batch.setCandidate(i, null, RankingBatch.NO_TIMESTAMP, false, null);
+        }
+
+        assertThat(rank(batch)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void buffersAreReusedAcrossSmallerBatches() {
+        RankingBatch batch = new RankingBatch();
+        batch.reset(4, NOW);
+        batch.setViewerInterests(new int[] {200});
+        for (int i = 0; i < 4; i++) {
+            batch.setCandidate(i, 100d * i, NOW, false, new int[] {200});
+        }
+        batch.reset(2, NOW);
+        batch.setViewerInterests(new int[] {3});
+        batch.setCandidate(0, 500d, NOW, false, null);
+        batch.setCandidate(1, 900d, NOW, false, new int[] {3});
+
+        assertEquals(0.0, batch.interestOverlap(0), 1e-9);
+        assertThat(rank(batch)).containsExactly(1, 0);
+    }
+
+    private int[] rank(RankingBatch batch) {
+        double[] scores = new double[batch.size()];
+        int[] order = new int[batch.size()];
+        ranker.score(batch, scores);
+        batch.order(scores, order);
+        return order;
+    }
+}
@@ -1,4 +1,4 @@
-import { IsEnum, IsInt, ValidateIf } from 'class-validator'
+import { IsEnum, IsInt, IsOptional, Min, ValidateIf } from 'class-validator'
 
 enum SwipeDirection {
   Like = 'like',
@@ -14,6 +14,16 @@ export class SwipeDto {
 
   @IsEnum(SwipeDirection)
     direction!: SwipeDirection
+
+  @IsOptional()
+  @IsInt()
+  @Min(0)
+    queueVersion?: number
+
+  @IsOptional()
+  @IsInt()
+  @Min(0)
+    queueEpoch?: number
 }
 
 export { SwipeDirection }
@@ -12,4 +12,5 @@ export interface SwipeFeedItem {
 export interface SwipeFeedResponse {
   timestamp: string
   items: SwipeFeedItem[]
+  nextCursor: string | null
 }
@@ -22,4 +22,23 @@ export interface SwipeQueueItemDto {
 export interface SwipeQueueDto {
   items: SwipeQueueItemDto[]
   undoAvailable: boolean
+  epoch: number
+  version: number
+}
+
+export type SwipeQueueOpType = 'REMOVE' | 'APPEND' | 'RESTORE'
+
+export interface SwipeQueueOpDto {
+  version: number
+  type: SwipeQueueOpType
+  telegramId: number
+  item: SwipeQueueItemDto | null
+}
+
+export interface SwipeQueueDeltaDto {
+  epoch: number
+  fromVersion: number
+  toVersion: number
+  ops: SwipeQueueOpDto[]
+  undoAvailable: boolean
 }
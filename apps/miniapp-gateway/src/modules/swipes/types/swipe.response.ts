@@ -1,8 +1,9 @@
-import type { SwipeQueueDto } from './swipe.queue.response'
+import type { SwipeQueueDeltaDto, SwipeQueueDto } from './swipe.queue.response'
 
 export interface SwipeResponseDto {
   matched: boolean
   matchId: string | null
   createdAt: string
-  queue: SwipeQueueDto
+  queue: SwipeQueueDto | null
+  delta: SwipeQueueDeltaDto | null
 }